@@ -1,9 +1,16 @@
-import java.util.List;
-import java.util.Random;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Common elements of predators and preys.
  *
+ * An animal does not count its age and hunger on every step. It keeps
+ * the step it was born, from which its age follows, and works out the
+ * step it will die of old age or hunger. A DeathSchedule kills it on
+ * that step; an animal no schedule looks after dies when it starts
+ * acting on that step instead.
+ *
  * @author David J. Barnes, Aryan Sanvee Vijayan, Alexander Sukhin, and Michael Kölling
  * @version 7.0
  */
@@ -14,20 +21,50 @@ public abstract class Animal extends Organism
     private boolean female;
     // Whether the animal is infected
     private boolean infected;
-    // Randomizer to generate randomness in simulation.
-    private static final Random rand = Randomizer.getRandom();
-    // Animal's age
-    private int age;
+    // The part of the key of the stream drawn from while the animal
+    // is being created.
+    private static final long BIRTH_STREAM = -1;
+    // The animal's identity, which keys its random streams.
+    private final long id;
+    // The animal's random stream for the current step.
+    private final RandomStream rand;
+    // The parameters of the run the animal belongs to.
+    private final Parameters parameters;
+    // The generator behind the random streams of the animal's run.
+    private final RandomEngine randomEngine;
+    // How many blocks away a mate may be.
+    private static final int MATING_RADIUS = 2;
+    // The step from which the animal's age is counted. Animals are
+    // made as if on step 0; a newborn's steps are moved on to the step
+    // it is born.
+    private int birthStep;
+    // The step the animal is acting in.
+    private int step;
+    // The schedule that kills the animal, or null if it checks for
+    // itself whether it dies when it starts a step.
+    private DeathSchedule deaths;
+    // The step on which the schedule next looks at the animal, and
+    // the animal's place in the schedule's slot for that step.
+    private int scheduledDeath;
+    private int scheduleIndex;
 
     /**
-     * Constructor for objects of class Animal.
+     * Constructor for objects of class Animal. Everything random about
+     * a new animal is drawn from a stream keyed by its id.
      * @param location The animal's location.
+     * @param id The animal's identity, which should be a random number
+     *           drawn from the stream of whoever creates it.
+     * @param parameters The parameters of the run.
+     * @param randomEngine The generator behind the run's random streams.
      */
-    public Animal(Location location)
+    public Animal(Location location, long id, Parameters parameters, RandomEngine randomEngine)
     {
         super(location);
-        Random random = new Random();
-        female = random.nextBoolean();
+        this.id = id;
+        this.parameters = parameters;
+        this.randomEngine = randomEngine;
+        rand = randomEngine.newStream(id, BIRTH_STREAM);
+        female = rand.nextBoolean();
         // Randomly infects animals with a 0.5% chance.
         if (rand.nextDouble() < 0.005) {
             infected = true;
@@ -41,10 +78,223 @@ public abstract class Animal extends Organism
      * Act.
      * @param currentField The current state of the field.
      * @param nextFieldState The new state being built.
-     * @param time The current day/night cycle.
-     * @param weather The current weather conditions.
+     * @param context The step number, day/night cycle, weather
+     *                and infection model of this step.
+     */
+    abstract public void act(Field currentField, Field nextFieldState, StepContext context);
+
+    /**
+     * Decide what to do in this step, for the intent step engine, and
+     * record it in the animal's slot of the intents. The decision is
+     * based only on the current field, and may change nothing but the
+     * animal itself (its age, hunger, infection and life), so animals
+     * can decide at the same time on several threads.
+     * @param currentField The current state of the field.
+     * @param context The step number, day/night cycle, weather
+     *                and infection model of this step.
+     * @param intents Where the decision is recorded.
+     * @param slot The animal's slot in the intents.
+     */
+    abstract public void decide(Field currentField, StepContext context, Intents intents, int slot);
+
+    /**
+     * Eat the food the animal decided to eat, if it is still there.
+     * Called by the intent step engine when the animal wins the food.
+     * @param currentField The current state of the field.
+     * @param location Where the food is.
+     * @return true if the food was eaten.
+     */
+    abstract protected boolean eat(Field currentField, Location location);
+
+    /**
+     * Create a new animal of the same kind as offspring.
+     * @param loc The location off the new offspring.
+     * @param id The identity of the offspring.
+     * @return The offspring.
+     */
+    abstract protected Animal offspring(Location loc, long id);
+
+    /**
+     * Create offspring born in the step the animal is acting in,
+     * looked after by the same schedule as the animal.
+     * @param loc The location of the newborn.
+     * @param id The identity of the newborn.
+     * @return The newborn.
+     */
+    protected Animal newborn(Location loc, long id)
+    {
+        Animal young = offspring(loc, id);
+        young.moveSteps(step);
+        if (deaths != null) {
+            young.adopt(deaths);
+        }
+        return young;
+    }
+
+    /**
+     * Move the steps the animal counts from on by a number of steps,
+     * as if it had been made that many steps later.
+     * @param steps The number of steps.
+     */
+    protected void moveSteps(int steps)
+    {
+        birthStep += steps;
+        step += steps;
+    }
+
+    /**
+     * Switch to the animal's random stream for a step. Every random
+     * decision of the animal in that step is drawn from this stream,
+     * so it does not depend on what other animals do first. An animal
+     * no schedule looks after dies here of old age or hunger when its
+     * time has come.
+     * @param step The number of the step.
+     */
+    protected void startStep(int step)
+    {
+        this.step = step;
+        rand.restart(id, step);
+        if (deaths == null && step >= getDeathStep()) {
+            setDead();
+        }
+    }
+
+    /**
+     * @return The number of the step the animal is acting in.
+     */
+    protected int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * Have a schedule kill the animal from now on, when it dies of old
+     * age or hunger.
+     * @param deaths The schedule.
+     */
+    void adopt(DeathSchedule deaths)
+    {
+        this.deaths = deaths;
+        deaths.add(this, getDeathStep());
+    }
+
+    /**
+     * Indicate that the animal is no longer alive, taking it out of
+     * its schedule.
+     */
+    @Override
+    protected void setDead()
+    {
+        super.setDead();
+        leaveSchedule();
+    }
+
+    /**
+     * Take the animal out of its schedule, if it has one, now that it
+     * has died or been replaced in the field and will not act again.
+     */
+    void leaveSchedule()
+    {
+        if (deaths != null) {
+            deaths.remove(this);
+            deaths = null;
+        }
+    }
+
+    /**
+     * @return The step on which the schedule next looks at the animal.
      */
-    abstract public void act(Field currentField, Field nextFieldState, Time time, Weather weather);
+    int getScheduledDeath()
+    {
+        return scheduledDeath;
+    }
+
+    /**
+     * @param scheduledDeath The step on which the schedule next looks
+     *                       at the animal.
+     */
+    void setScheduledDeath(int scheduledDeath)
+    {
+        this.scheduledDeath = scheduledDeath;
+    }
+
+    /**
+     * @return The animal's place in the schedule's slot for the step
+     *         on which it next looks at the animal.
+     */
+    int getScheduleIndex()
+    {
+        return scheduleIndex;
+    }
+
+    /**
+     * @param scheduleIndex The animal's place in the schedule's slot
+     *                      for the step on which it next looks at the
+     *                      animal.
+     */
+    void setScheduleIndex(int scheduleIndex)
+    {
+        this.scheduleIndex = scheduleIndex;
+    }
+
+    /**
+     * Return the step on which the animal dies of old age or hunger,
+     * if nothing else kills it first.
+     * @return The number of the step.
+     */
+    public int getDeathStep()
+    {
+        return Math.min(birthStep + maxAge() + 1, getStarvationStep());
+    }
+
+    /**
+     * Return the step on which the animal dies of hunger unless it
+     * eats first.
+     * @return The number of the step.
+     */
+    abstract protected int getStarvationStep();
+
+    /**
+     * Return the animal's identity, which keys its random streams.
+     * @return The animal's id.
+     */
+    public long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Write the parts of the animal's state that change as it lives,
+     * so that a copy of it can be made in another process. Its id,
+     * from which everything else follows, is written separately.
+     * @param out Where to write the state.
+     * @throws IOException If the state cannot be written.
+     */
+    public void writeState(DataOutput out) throws IOException
+    {
+        out.writeInt(birthStep);
+        out.writeBoolean(infected);
+    }
+
+    /**
+     * Take on a state written by writeState.
+     * @param in Where to read the state from.
+     * @throws IOException If the state cannot be read.
+     */
+    public void readState(DataInput in) throws IOException
+    {
+        birthStep = in.readInt();
+        infected = in.readBoolean();
+    }
+
+    /**
+     * Return an id for an animal born to this one.
+     * @return A new animal id.
+     */
+    protected long newbornId()
+    {
+        return rand.nextLong();
+    }
 
     /**
      * Check whether the animal will act at this step, considering weather conditions.
@@ -70,41 +320,45 @@ public abstract class Animal extends Organism
     }
 
     /**
-     * Checks if there is a compatible mate in the nearby cells.
-     * @param field The field to check for adjacent animals.
+     * Checks if there is a compatible mate in the nearby cells, i.e.
+     * a live animal of the same species and the opposite gender
+     * within MATING_RADIUS blocks.
+     * @param field The field to check for nearby animals.
      * @return true if a compatible mate is found, false otherwise
      */
     public boolean hasCompatibleMate(Field field) {
-        List<Location> adjacentLocations = field.getNearbyLocations(getLocation());
-        for (Location loc : adjacentLocations) {
-            Animal animal = field.getAnimalAt(loc);
-            // Checks every adjacent location, returning true if a location
-            // contains a animal which is the same species as the current
-            // animal and is the opposite gender to the current animal.
-            if ((animal != null) && (animal.getClass() == this.getClass()) 
-            && (animal.isFemale() != this.isFemale())) {
-                return true;
-            }
-        }
-        return false;
+        int row = getLocation().row();
+        int col = getLocation().col();
+        // The window includes the animal's own cell, which in the next
+        // field state may hold another animal that has moved there;
+        // that animal is not a mate, so the cell is left out. The
+        // animal itself is never counted, as only the opposite gender is.
+        int mates = field.countInWindow(getSpeciesIndex(), !isFemale(),
+                                        row - MATING_RADIUS, col - MATING_RADIUS,
+                                        row + MATING_RADIUS, col + MATING_RADIUS)
+                    - field.countInWindow(getSpeciesIndex(), !isFemale(), row, col, row, col);
+        return mates > 0;
     }
 
     /**
-     * Check whether this animal is infected.
+     * Check whether this animal is infected, i.e. whether any
+     * adjacent animal is infected.
      * @param field The current state of the field.
      */
     public void checkIfInfected(Field field) {
-        List<Location> adjacentLocations = field.getAdjacentLocations(getLocation());
-        // Checks each location for infected animals and sets
-        // current animal to infected if true.
-        for (Location loc : adjacentLocations) {
-            Animal animal = field.getAnimalAt(loc);
-            if (animal != null && animal.isInfected()) {
-                infected= true;
-            }
+        if (field.getInfectedAdjacentMask(getLocation()) != 0) {
+            infected = true;
         }
     }
 
+    /**
+     * Infect the animal.
+     */
+    protected void infect()
+    {
+        infected = true;
+    }
+
     /**
      * Check whether the animal is infected.
      * @return true if the animal is infected, false otherwise.
@@ -142,34 +396,95 @@ public abstract class Animal extends Organism
     }
 
     /**
-     * Increase the age. This could result in the animal's death.
+     * Generate a random long, for priorities and keys.
+     * @return The random long.
      */
-    public void incrementAge()
+    protected long randLong()
     {
-        age++;
-        checkIfTooOld(); // Check if the animal is too old to be alive.
+        return rand.nextLong();
     }
 
     /**
-     * Get the age of the animal.
+     * Pick a random visiting order for a neighbourhood.
+     * @param neighbourhood The neighbourhood to visit.
+     * @return The cell numbers of the neighbourhood in a random order.
+     */
+    protected int[] randomOrder(Neighbourhood neighbourhood)
+    {
+        return neighbourhood.randomOrder(rand);
+    }
+
+    /**
+     * Return the first cell of a mask of adjacent cells, in the given
+     * visiting order.
+     * @param cells A mask in which bit k stands for cell k of
+     *              Neighbourhood.ADJACENT.
+     * @param order The order in which to visit the cells.
+     * @return The number of the first cell in the mask, or -1 if the
+     *         mask is empty.
+     */
+    protected static int firstCell(int cells, int[] order)
+    {
+        for (int k : order) {
+            if ((cells & (1 << k)) != 0) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the location of a cell adjacent to this animal.
+     * @param k The number of the cell in Neighbourhood.ADJACENT.
+     * @return The location of that cell.
+     */
+    protected Location adjacentLocation(int k)
+    {
+        return new Location(getLocation().row() + Neighbourhood.ADJACENT.rowOffset(k),
+                            getLocation().col() + Neighbourhood.ADJACENT.colOffset(k));
+    }
+
+    /**
+     * Get the age of the animal in the step it is acting in.
      * @return age Age of the animal
      */
     public int getAge()
     {
-        return age;
+        return step - birthStep;
     }
 
     /**
-     * Set the age of the animal.
+     * Set the age of the animal in the step it is acting in.
      * @param newAge The age to set the animal to.
      */
     public void setAge(int newAge)
     {
-        age = newAge;
+        birthStep = step - newAge;
+    }
+
+    /**
+     * Get the parameters of the run the animal belongs to, which it
+     * passes on to its offspring.
+     * @return The parameters.
+     */
+    public Parameters getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Get the generator behind the random streams of the run the
+     * animal belongs to, which it passes on to its offspring.
+     * @return The random engine.
+     */
+    public RandomEngine getRandomEngine()
+    {
+        return randomEngine;
     }
 
     /**
-     *  Check if the animal is too old to live.
+     * Return the age to which the animal can live.
+     * @return The maximum age.
      */
-    abstract protected void checkIfTooOld();
+    abstract protected int maxAge();
 }
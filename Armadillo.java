@@ -10,28 +10,24 @@ import java.util.Random;
  */
 public class Armadillo extends Prey
 {
-    // Characteristics shared by all armadillos (class variables).
-    // The age at which a armadillo can start to breed.
-    private static final int BREEDING_AGE = 10;
-    // The age to which a armadillo can live.
-    private static final int MAX_AGE = 30;
-    // The likelihood of a armadillo breeding.
-    private static final double BREEDING_PROBABILITY = 0.5;
-    // The maximum number of births.
-    private static final int MAX_LITTER_SIZE = 6;
-
     /**
      * Create a new armadillo. A armadillo may be created with age
      * zero (a new born) or with a random age.
      * 
      * @param randomAge If true, the armadillo will have a random age.
      * @param location The location within the field.
+     * @param id The identity of the armadillo.
+     * @param parameters The parameters of the run, which the armadillo's
+     *                   offspring inherit.
+     * @param randomEngine The generator behind the run's random streams,
+     *                     which the armadillo's offspring inherit.
      */
-    public Armadillo(boolean randomAge, Location location)
+    public Armadillo(boolean randomAge, Location location, long id, Parameters parameters,
+                     RandomEngine randomEngine)
     {
-        super(location);
+        super(location, id, parameters, randomEngine);
         if(randomAge) {
-            setAge(randInt(MAX_AGE));
+            setAge(randInt(getParameters().getInt(Parameter.ARMADILLO_MAX_AGE)));
         }
         else {
             setAge(0);
@@ -48,13 +44,12 @@ public class Armadillo extends Prey
     }
 
     /**
-     * Check if the armadillo is too old to live.
+     * Return the age to which the armadillo can live.
+     * @return The maximum age.
      */
-    protected void checkIfTooOld()
+    protected int maxAge()
     {
-        if(getAge() > MAX_AGE) {
-            setDead();
-        }
+        return getParameters().getInt(Parameter.ARMADILLO_MAX_AGE);
     }
 
     /**
@@ -64,16 +59,18 @@ public class Armadillo extends Prey
      */
     protected boolean breedSuccess()
     {
-        return getAge() >= BREEDING_AGE && randDouble() <= BREEDING_PROBABILITY;
+        return getAge() >= getParameters().getInt(Parameter.ARMADILLO_BREEDING_AGE)
+               && randDouble() <= getParameters().get(Parameter.ARMADILLO_BREEDING_PROBABILITY);
     }
 
     /**
      * Create a new armadillo as offspring.
      * @param loc The location off the new offspring.
+     * @param id The identity of the offspring.
      * @return The offspring.
      */
-    protected Animal offspring(Location loc) {
-        Armadillo young = new Armadillo(false,loc);
+    protected Animal offspring(Location loc, long id) {
+        Armadillo young = new Armadillo(false, loc, id, getParameters(), getRandomEngine());
         return young;
     }
 
@@ -82,7 +79,7 @@ public class Armadillo extends Prey
      * @return Number of offspring.
      */
     protected int birthNumber() {
-        return randInt(MAX_LITTER_SIZE) + 1;
+        return randInt(getParameters().getInt(Parameter.ARMADILLO_MAX_LITTER_SIZE)) + 1;
     }
 
     /**
@@ -106,13 +103,13 @@ public class Armadillo extends Prey
     /**
      * Checks if a prey can eat the plant
      * depending on the type of prey.
-     * @param leafCell The leaf to check.
+     * @param plantSpecies The species number of the plant owning the leaf.
      * @return true if the prey can eat the leaf, false if not.
      */
-    protected boolean canEat(LeafCell leafCell) {
+    protected boolean canEat(int plantSpecies) {
         // If the core plant which is being eaten belongs
         // to a berry shrub, the prey can eat the leaf.
-        if (leafCell.parentClass() == BerryShrub.class) {
+        if (plantSpecies == Species.indexOf(BerryShrub.class)) {
             return true;
         } else {
             return false;
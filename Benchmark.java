@@ -0,0 +1,552 @@
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measure how fast the simulation runs without the graphical view.
+ * Run it from the command line as
+ *
+ *     java Benchmark scaling [depth width steps]
+ *
+ * which runs the same starting field with the sequential step engine,
+ * with the plants grown on a thread of their own alongside it, and
+ * with the tiled and intent step engines on 1, 2, 4, ... threads up
+ * to the number of processors, and prints the steps per second of
+ * each, or
+ *
+ *     java Benchmark rng [depth width steps [generator]]
+ *
+ * which prints the cost of each random generator (Random,
+ * SplitMix64 or Xoshiro256**, or all of them), alone and in bulk, and
+ * the share of step time spent drawing random numbers with each, or
+ *
+ *     java Benchmark view [depth width steps]
+ *
+ * which prints the steps per second of a Simulator without a view and,
+ * if there is a display, of one showing the graphical view, with no
+ * pause between steps, or
+ *
+ *     java Benchmark leaves [depth width steps]
+ *
+ * which prints the steps per second of a Simulator keeping its leaves
+ * as LeafCell objects and of one keeping them in arrays, and the heap
+ * each holds at the end of the run, or
+ *
+ *     java Benchmark deaths [depth width steps]
+ *
+ * which prints the steps per second of a Simulator whose animals each
+ * check whether they die of old age or hunger as they act, and of one
+ * whose animals are killed by a DeathSchedule.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class Benchmark
+{
+    // The default size of the field and length of each run.
+    private static final int DEFAULT_DEPTH = 400;
+    private static final int DEFAULT_WIDTH = 600;
+    private static final int DEFAULT_STEPS = 200;
+    // The number of untimed runs of each engine before timing starts.
+    private static final int WARMUP_RUNS = 2;
+    // The number of values drawn to time a random generator.
+    private static final int RNG_VALUES = 20_000_000;
+    // The random generators compared by the rng benchmark.
+    private static final List<String> GENERATORS = List.of("Random", "SplitMix64", "Xoshiro256**");
+
+    /**
+     * Run a benchmark.
+     * @param args The name of the benchmark, followed by its settings.
+     */
+    public static void main(String[] args)
+    {
+        String name = args.length > 0 ? args[0] : "scaling";
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DEPTH;
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_WIDTH;
+        int steps = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_STEPS;
+        if (name.equals("scaling")) {
+            scaling(depth, width, steps);
+        }
+        else if (name.equals("rng") && args.length > 4) {
+            rng(args[4], depth, width, steps);
+        }
+        else if (name.equals("rng")) {
+            rng(depth, width, steps);
+        }
+        else if (name.equals("view")) {
+            view(depth, width, steps);
+        }
+        else if (name.equals("leaves")) {
+            leaves(depth, width, steps);
+        }
+        else if (name.equals("deaths")) {
+            deaths(depth, width, steps);
+        }
+        else {
+            System.out.println("Unknown benchmark: " + name);
+            System.out.println("Usage: java Benchmark scaling|rng|view|leaves|deaths [depth width steps [generator]]");
+        }
+    }
+
+    /**
+     * Print the steps per second of the sequential engine, alone and
+     * with the plants on their own thread, and of the tiled and
+     * intent engines with increasing numbers of threads.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps in each run.
+     */
+    private static void scaling(int depth, int width, int steps)
+    {
+        System.out.println("Field " + depth + "x" + width + ", " + steps + " steps per run");
+        PlantStage ownThread = PlantStage.onOwnThread();
+        // Give the JIT compiler a chance to compile the step code of
+        // every engine first; otherwise the first runs are mostly
+        // measuring the interpreter.
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(new SequentialStepEngine(), depth, width, steps);
+            run(new SequentialStepEngine(), ownThread, RandomEngine.DEFAULT, depth, width, steps);
+            run(new TiledStepEngine(), depth, width, steps);
+            run(new IntentStepEngine(), depth, width, steps);
+        }
+
+        double sequential = run(new SequentialStepEngine(), depth, width, steps);
+        System.out.printf("%-12s %8s %12.1f %8s%n", "sequential", "1", sequential, "1.00");
+        double pipelined = run(new SequentialStepEngine(), ownThread, RandomEngine.DEFAULT,
+                               depth, width, steps);
+        System.out.printf("%-12s %8s %12.1f %8.2f%n",
+                          "plant stage", "1+1", pipelined, pipelined / sequential);
+
+        for (int threads : threadCounts()) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                double rate = run(new TiledStepEngine(pool), depth, width, steps);
+                System.out.printf("%-12s %8d %12.1f %8.2f%n",
+                                  "tiled", threads, rate, rate / sequential);
+                rate = run(new IntentStepEngine(pool), depth, width, steps);
+                System.out.printf("%-12s %8d %12.1f %8.2f%n",
+                                  "intent", threads, rate, rate / sequential);
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Print the steps per second of a simulation without a view and,
+     * if there is a display, of the same simulation showing the
+     * graphical view, and how much the view slows it down.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps in each run.
+     */
+    private static void view(int depth, int width, int steps)
+    {
+        System.out.println("Field " + depth + "x" + width + ", " + steps + " steps per run");
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(SimulationObserver.NONE, depth, width, steps);
+        }
+        double headless = run(SimulationObserver.NONE, depth, width, steps);
+        System.out.printf("%-12s %12.1f%n", "headless", headless);
+        if (!SimulatorView.isDisplayAvailable()) {
+            System.out.println("No display is available, so the view is not measured.");
+            return;
+        }
+        SimulatorView view = new SimulatorView(depth, width);
+        try {
+            double shown = run(view, depth, width, steps);
+            System.out.printf("%-12s %12.1f %8.2f%n", "view", shown, shown / headless);
+            System.out.println(view.getDroppedFrames() + " frames dropped");
+        }
+        finally {
+            view.dispose();
+        }
+    }
+
+    /**
+     * Print the steps per second and the heap in use at the end of a
+     * run of a simulation keeping its leaves as LeafCell objects and
+     * of one keeping them in arrays.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps in each run.
+     */
+    private static void leaves(int depth, int width, int steps)
+    {
+        System.out.println("Field " + depth + "x" + width + ", " + steps + " steps per run");
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            runLeaves(false, depth, width, steps, false);
+            runLeaves(true, depth, width, steps, false);
+        }
+        System.out.printf("%-12s %12s %10s %10s%n", "leaves", "steps/sec", "heap MB", "leaves");
+        runLeaves(false, depth, width, steps, true);
+        runLeaves(true, depth, width, steps, true);
+    }
+
+    /**
+     * Run a Simulator from the standard starting field, as fast as it
+     * can go, and print its row of the leaves benchmark.
+     * @param leafArrays Whether the simulation keeps its leaves in arrays.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps to run.
+     * @param print Whether to print the row, rather than just warm up.
+     */
+    private static void runLeaves(boolean leafArrays, int depth, int width, int steps,
+                                  boolean print)
+    {
+        long before = heapInUse();
+        Simulator simulator = Simulator.withoutView(depth, width, Randomizer.getSeed());
+        simulator.setLeafArrays(leafArrays);
+        simulator.reset();
+        long start = System.nanoTime();
+        for (int step = 1; step <= steps; step++) {
+            simulator.simulateOneStep();
+        }
+        long elapsed = System.nanoTime() - start;
+        long heap = heapInUse() - before;
+        if (print) {
+            System.out.printf("%-12s %12.1f %10.1f %10d%n", leafArrays ? "arrays" : "objects",
+                              steps / (elapsed / 1e9), heap / 1e6, simulator.getPopulation().leaves());
+        }
+        Reference.reachabilityFence(simulator);
+    }
+
+    /**
+     * Print the steps per second of a simulation whose animals check
+     * for themselves whether they die of old age or hunger, and of one
+     * whose animals are killed by a death schedule.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps in each run.
+     */
+    private static void deaths(int depth, int width, int steps)
+    {
+        System.out.println("Field " + depth + "x" + width + ", " + steps + " steps per run");
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            runDeaths(false, depth, width, steps);
+            runDeaths(true, depth, width, steps);
+        }
+        double checked = runDeaths(false, depth, width, steps);
+        System.out.printf("%-12s %12.1f %8s%n", "checked", checked, "1.00");
+        double scheduled = runDeaths(true, depth, width, steps);
+        System.out.printf("%-12s %12.1f %8.2f%n", "scheduled", scheduled, scheduled / checked);
+    }
+
+    /**
+     * Run a Simulator from the standard starting field, as fast as it
+     * can go.
+     * @param scheduledDeaths Whether a death schedule kills the animals.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps to run.
+     * @return The steps run per second.
+     */
+    private static double runDeaths(boolean scheduledDeaths, int depth, int width, int steps)
+    {
+        Simulator simulator = Simulator.withoutView(depth, width, Randomizer.getSeed());
+        simulator.setScheduledDeaths(scheduledDeaths);
+        simulator.reset();
+        long start = System.nanoTime();
+        for (int step = 1; step <= steps; step++) {
+            simulator.simulateOneStep();
+        }
+        long elapsed = System.nanoTime() - start;
+        return steps / (elapsed / 1e9);
+    }
+
+    /**
+     * @return The bytes of heap in use after a garbage collection.
+     */
+    private static long heapInUse()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Run a Simulator from the standard starting field, as fast as it
+     * can go.
+     * @param observer What is shown the field after every step.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps to run.
+     * @return The steps run per second.
+     */
+    private static double run(SimulationObserver observer, int depth, int width, int steps)
+    {
+        Simulator simulator = Simulator.withoutView(depth, width, Randomizer.getSeed());
+        simulator.setObserver(observer);
+        long start = System.nanoTime();
+        for (int step = 1; step <= steps; step++) {
+            simulator.simulateOneStep();
+        }
+        long elapsed = System.nanoTime() - start;
+        return steps / (elapsed / 1e9);
+    }
+
+    /**
+     * Print, for each random generator, the time it takes per value
+     * drawn one at a time and in bulk, the steps per second of the
+     * sequential engine with streams from that generator, and the
+     * share of each step spent drawing random numbers. The shared
+     * java.util.Random behind Randomizer.getRandom, which every draw
+     * used to go through, is included for comparison. Each generator
+     * is measured in a fresh JVM, so that the JIT compiler's view of
+     * one generator does not slow down the next.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps in each run.
+     */
+    private static void rng(int depth, int width, int steps)
+    {
+        System.out.printf("%-14s %9s %9s %10s %12s %10s%n", "generator",
+                          "ns/value", "bulk", "steps/sec", "values/step", "rng share");
+        for (String generator : GENERATORS) {
+            ProcessBuilder child = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), "Benchmark", "rng",
+                String.valueOf(depth), String.valueOf(width), String.valueOf(steps), generator);
+            try {
+                child.inheritIO().start().waitFor();
+            }
+            catch(IOException | InterruptedException e) {
+                System.out.println("Could not measure " + generator + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Measure one random generator and print its row of the rng
+     * benchmark.
+     * @param generator The name of the generator.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps in each run.
+     */
+    private static void rng(String generator, int depth, int width, int steps)
+    {
+        RandomEngine randomEngine;
+        if (generator.equals("Random")) {
+            randomEngine = SharedRandom::new;
+        }
+        else if (generator.equals("SplitMix64")) {
+            randomEngine = SplitMix64::new;
+        }
+        else if (generator.equals("Xoshiro256**")) {
+            randomEngine = Xoshiro256StarStar::new;
+        }
+        else {
+            System.out.println("Unknown generator: " + generator);
+            return;
+        }
+
+        RandomStream stream = randomEngine.create();
+        stream.restart(Randomizer.getSeed(), 0);
+        for (int w = 0; w < WARMUP_RUNS; w++) {
+            timeValues(stream, false);
+            timeValues(stream, true);
+        }
+        double nanosPerValue = timeValues(stream, false);
+        double bulkNanosPerValue = timeValues(stream, true);
+
+        // Count the values a run draws, then time the same run.
+        run(new SequentialStepEngine(), () -> new CountingStream(randomEngine.create()),
+            depth, width, steps);
+        double valuesPerStep = (double) CountingStream.values / steps;
+        for (int w = 0; w < WARMUP_RUNS; w++) {
+            run(new SequentialStepEngine(), randomEngine, depth, width, steps);
+        }
+        double rate = run(new SequentialStepEngine(), randomEngine, depth, width, steps);
+        double share = valuesPerStep * nanosPerValue * rate / 1e9;
+        System.out.printf("%-14s %9.2f %9.2f %10.1f %12.0f %9.1f%%%n", generator,
+                          nanosPerValue, bulkNanosPerValue, rate, valuesPerStep, share * 100);
+    }
+
+    /**
+     * Time how long a stream takes to draw doubles.
+     * @param stream The stream to draw from.
+     * @param bulk Whether to draw with fillDoubles rather than one at a time.
+     * @return The nanoseconds per value.
+     */
+    private static double timeValues(RandomStream stream, boolean bulk)
+    {
+        double[] batch = new double[1024];
+        double sum = 0;
+        long start = System.nanoTime();
+        if (bulk) {
+            for (int drawn = 0; drawn < RNG_VALUES; drawn += batch.length) {
+                stream.fillDoubles(batch, 0, batch.length);
+                sum += batch[drawn & 1023];
+            }
+        }
+        else {
+            for (int drawn = 0; drawn < RNG_VALUES; drawn++) {
+                sum += stream.nextDouble();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sum < 0) {
+            // Never true; keeps the values from being optimised away.
+            System.out.println(sum);
+        }
+        return (double) elapsed / RNG_VALUES;
+    }
+
+    /**
+     * @return 1, 2, 4, ... up to the number of processors, which is
+     *         included even if it is not a power of two.
+     */
+    private static List<Integer> threadCounts()
+    {
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < processors; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(processors);
+        return counts;
+    }
+
+    /**
+     * Run the simulation from the standard starting field, with time
+     * and weather changing as they do in Simulator.
+     * @param engine The step engine to use.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps to run.
+     * @return The steps run per second.
+     */
+    private static double run(StepEngine engine, int depth, int width, int steps)
+    {
+        return run(engine, new PlantStage(), RandomEngine.DEFAULT, depth, width, steps);
+    }
+
+    /**
+     * Run the simulation from the standard starting field, with time
+     * and weather changing as they do in Simulator.
+     * @param engine The step engine to use.
+     * @param randomEngine The generator behind the random streams.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps to run.
+     * @return The steps run per second.
+     */
+    private static double run(StepEngine engine, RandomEngine randomEngine,
+                              int depth, int width, int steps)
+    {
+        return run(engine, new PlantStage(), randomEngine, depth, width, steps);
+    }
+
+    /**
+     * Run the simulation from the standard starting field, with time
+     * and weather changing as they do in Simulator.
+     * @param engine The step engine to use.
+     * @param plantStage The plant stage to use.
+     * @param randomEngine The generator behind the random streams.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps to run.
+     * @return The steps run per second.
+     */
+    private static double run(StepEngine engine, PlantStage plantStage, RandomEngine randomEngine,
+                              int depth, int width, int steps)
+    {
+        long seed = Randomizer.getSeed();
+        Field field = new Field(depth, width);
+        Field nextFieldState = new Field(depth, width);
+        Simulator.populate(field, seed, Parameters.DEFAULTS, randomEngine);
+        Time time = Time.DAY;
+        Weather weather = Weather.CLEAR;
+
+        long start = System.nanoTime();
+        for (int step = 1; step <= steps; step++) {
+            nextFieldState.clear();
+            plantStage.start(field, nextFieldState, time);
+            engine.step(field, nextFieldState,
+                        new StepContext(step, time, weather, InfectionModel.PER_ANIMAL));
+            plantStage.finish(field, nextFieldState);
+            Field oldState = field;
+            field = nextFieldState;
+            nextFieldState = oldState;
+
+            if (step % Simulator.DAY_STEPS == 0) {
+                time = (time == Time.DAY) ? Time.NIGHT : Time.DAY;
+            }
+            if (step % Simulator.WEATHER_STEPS == 0) {
+                weather = Weather.randomWeather(Simulator.weatherStream(randomEngine, seed, step));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return steps / (elapsed / 1e9);
+    }
+
+    /**
+     * A stream that draws from one shared, synchronized
+     * java.util.Random, as every random decision did before the
+     * simulation had its own generators. Its values ignore the key.
+     */
+    @SuppressWarnings("serial")
+    private static class SharedRandom extends RandomStream
+    {
+        private static final Random shared = new Random(Randomizer.getSeed());
+
+        @Override
+        protected void start(long key)
+        {
+        }
+
+        @Override
+        public long nextLong()
+        {
+            return shared.nextLong();
+        }
+
+        @Override
+        public double nextDouble()
+        {
+            return shared.nextDouble();
+        }
+    }
+
+    /**
+     * A stream that passes on the values of another stream, counting
+     * the values drawn from all streams of its kind.
+     */
+    @SuppressWarnings("serial")
+    private static class CountingStream extends RandomStream
+    {
+        private static long values;
+        private final RandomStream inner;
+
+        /**
+         * @param inner The stream whose values are passed on.
+         */
+        CountingStream(RandomStream inner)
+        {
+            this.inner = inner;
+        }
+
+        @Override
+        protected void start(long key)
+        {
+            // Called by the Random constructor before inner is set.
+            if (inner != null) {
+                inner.start(key);
+            }
+        }
+
+        @Override
+        public long nextLong()
+        {
+            values++;
+            return inner.nextLong();
+        }
+    }
+}
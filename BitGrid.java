@@ -0,0 +1,230 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A rectangular grid of bits, one per field location, packed 64 to a
+ * long. Every row starts on a fresh word, so a short run of bits along
+ * a row can be read with one or two word operations. The field keeps
+ * one of these for each property that neighbourhood queries ask about,
+ * such as "holds a live animal".
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class BitGrid
+{
+    // Access to the words for atomic updates.
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // The dimensions of the grid.
+    private final int depth, width;
+    // The number of words used by each row.
+    private final int rowWords;
+    // The bits, row by row.
+    private final long[] words;
+    // Whether set and clear must be safe against other threads
+    // changing other bits of the same word.
+    private boolean atomic;
+
+    /**
+     * Create a grid with every bit cleared.
+     * @param depth The depth of the grid.
+     * @param width The width of the grid.
+     */
+    public BitGrid(int depth, int width)
+    {
+        this.depth = depth;
+        this.width = width;
+        rowWords = (width + 63) >>> 6;
+        words = new long[depth * rowWords];
+    }
+
+    /**
+     * Set the bit of a location.
+     * @param row The row of the location.
+     * @param col The column of the location.
+     */
+    public void set(int row, int col)
+    {
+        int word = row * rowWords + (col >>> 6);
+        if(atomic) {
+            WORDS.getAndBitwiseOr(words, word, 1L << col);
+        }
+        else {
+            words[word] |= 1L << col;
+        }
+    }
+
+    /**
+     * Clear the bit of a location.
+     * @param row The row of the location.
+     * @param col The column of the location.
+     */
+    public void clear(int row, int col)
+    {
+        int word = row * rowWords + (col >>> 6);
+        if(atomic) {
+            WORDS.getAndBitwiseAnd(words, word, ~(1L << col));
+        }
+        else {
+            words[word] &= ~(1L << col);
+        }
+    }
+
+    /**
+     * Choose whether set and clear update words atomically. This is
+     * needed while several threads change bits of the same grid, and
+     * is slower otherwise.
+     * @param atomic true to update words atomically.
+     */
+    public void setAtomic(boolean atomic)
+    {
+        this.atomic = atomic;
+    }
+
+    /**
+     * Return the bit of a location.
+     * @param row The row of the location.
+     * @param col The column of the location.
+     * @return true if the bit is set.
+     */
+    public boolean get(int row, int col)
+    {
+        return (words[row * rowWords + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    /**
+     * Clear every bit.
+     */
+    public void clearAll()
+    {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * Make this grid a copy of another grid of the same size.
+     * @param source The grid to copy.
+     */
+    public void copyFrom(BitGrid source)
+    {
+        System.arraycopy(source.words, 0, words, 0, words.length);
+    }
+
+    /**
+     * Set in another grid of the same size every bit that is set in
+     * this grid or lies next to (or diagonally next to) a bit set in
+     * this grid. The other grid's previous contents are overwritten.
+     * @param target The grid to hold the result.
+     */
+    public void dilateInto(BitGrid target)
+    {
+        long[] spread = target.words;
+        // The last word of each row only uses the low width % 64 bits.
+        long lastWordMask = (width & 63) == 0 ? -1L : (1L << width) - 1;
+
+        // Spread every bit to its left and right neighbours.
+        for(int row = 0; row < depth; row++) {
+            int base = row * rowWords;
+            for(int i = 0; i < rowWords; i++) {
+                long word = words[base + i];
+                long left = word << 1;
+                long right = word >>> 1;
+                if(i > 0) {
+                    left |= words[base + i - 1] >>> 63;
+                }
+                if(i < rowWords - 1) {
+                    right |= words[base + i + 1] << 63;
+                }
+                spread[base + i] = word | left | right;
+            }
+            spread[base + rowWords - 1] &= lastWordMask;
+        }
+
+        // Spread every row to the rows above and below.
+        long[] previous = new long[rowWords];
+        long[] current = new long[rowWords];
+        for(int row = 0; row < depth; row++) {
+            int base = row * rowWords;
+            System.arraycopy(spread, base, current, 0, rowWords);
+            for(int i = 0; i < rowWords; i++) {
+                long below = row < depth - 1 ? spread[base + rowWords + i] : 0;
+                spread[base + i] = previous[i] | current[i] | below;
+            }
+            long[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+    }
+
+    /**
+     * Read a run of bits along a row. Bit i of the result is the bit
+     * of column fromCol + i. Positions outside the grid read as 0.
+     * @param row The row to read.
+     * @param fromCol The first column of the run (may be negative).
+     * @param count The length of the run, less than 64.
+     * @return The bits of the run.
+     */
+    public long bits(int row, int fromCol, int count)
+    {
+        if(row < 0 || row >= depth) {
+            return 0;
+        }
+        int shift = 0;
+        if(fromCol < 0) {
+            shift = -fromCol;
+            count -= shift;
+            fromCol = 0;
+        }
+        if(fromCol + count > width) {
+            count = width - fromCol;
+        }
+        if(count <= 0) {
+            return 0;
+        }
+        int word = row * rowWords + (fromCol >>> 6);
+        int offset = fromCol & 63;
+        long value = words[word] >>> offset;
+        if(offset + count > 64) {
+            value |= words[word + 1] << (64 - offset);
+        }
+        return (value & ((1L << count) - 1)) << shift;
+    }
+
+    /**
+     * Count the set bits within a rectangle. Parts of the rectangle
+     * outside the grid are ignored. The cost grows with the number of
+     * rows and with the number of 63-column chunks in each row.
+     * @param top The first row of the rectangle.
+     * @param left The first column of the rectangle.
+     * @param bottom The last row of the rectangle.
+     * @param right The last column of the rectangle.
+     * @return The number of set bits.
+     */
+    public int count(int top, int left, int bottom, int right)
+    {
+        int total = 0;
+        for(int row = Math.max(top, 0); row <= bottom && row < depth; row++) {
+            for(int from = left; from <= right; from += 63) {
+                total += Long.bitCount(bits(row, from, Math.min(63, right - from + 1)));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Return the bits of the 8 cells adjacent to a location, as a mask
+     * in which bit k stands for cell k of Neighbourhood.ADJACENT.
+     * Cells outside the grid read as 0.
+     * @param row The row of the location.
+     * @param col The column of the location.
+     * @return The mask of adjacent bits.
+     */
+    public int adjacentMask(int row, int col)
+    {
+        int above = (int) bits(row - 1, col - 1, 3);
+        int middle = (int) bits(row, col - 1, 3);
+        int below = (int) bits(row + 1, col - 1, 3);
+        return above | (middle & 1) << 3 | (middle >>> 2) << 4 | below << 5;
+    }
+}
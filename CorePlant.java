@@ -4,7 +4,25 @@ import java.util.List;
 /**
  * This class represents the centre of each plant,
  * handling the logic between growing through a list
- * of leaf cells.   
+ * of leaf cells.
+ *
+ * A plant is woken by a PlantSchedule only on the day steps at which
+ * it changes phase or is reset. On the day steps in between it would
+ * only grow older, which it catches up on when it is next woken.
+ *
+ * A cell that two plants grow into goes to the plant that would have
+ * placed its leaf last had the plants grown one by one in the order
+ * of the field's list of plants, in which each plant's leaves come
+ * just before it. Fields are populated row by row, so this is the
+ * reading order of the plants' centres. The schedule wakes plants in
+ * another order, so a woken plant only places a leaf over its own
+ * leaves, or over a plant or leaf whose centre comes before its own
+ * in reading order.
+ *
+ * In a field that keeps its leaves in arrays, the plant only counts
+ * its leaves. Each time it grows a new 3x3 set of leaves it starts a
+ * new leaf generation, so that a leaf of the old set eaten on the
+ * same step is not taken off the count of the new one.
  *
  * @author Alexander Sukhin
  * @version 11/02/2025
@@ -18,9 +36,19 @@ public abstract class CorePlant extends Plant
     private int phase;
     // The leaf cells extending from the plant.
     private List<LeafCell> leafCells;
+    // The number of leaves grown in a field with leaf arrays and not
+    // yet eaten, and the generation of those leaves, 0 or 1.
+    private int leafCount;
+    private int leafGeneration;
     // The ages at which the plant evolves into different phases.
     private static final int PHASE_2_AGE = 25;
     private static final int PHASE_3_AGE = 50;
+    // The schedule that wakes the plant, or null until it is adopted.
+    private PlantSchedule schedule;
+    // The day step at which the schedule next wakes the plant.
+    private int wakeStep;
+    // The day step up to which the growth state has been counted.
+    private int countedStep;
 
     /**
      * Creates a core plant. A core plant represents the centre
@@ -36,38 +64,111 @@ public abstract class CorePlant extends Plant
         phase = 1;
     }
 
-    /** 
-     * This is what the plant does most of the time. It increments
-     * the age and goes to next phase when plant is old enough.
+    /**
+     * Take a day step after sleeping through the ones since the plant
+     * was last woken. Called by the plant's schedule, after the plant
+     * has been carried into the next field state. A plant whose centre
+     * a leaf grows over on this step still takes its step, as it would
+     * if it had grown before the plant growing the leaf.
      * @param currentField The field currently occupied.
      * @param nextFieldState The updated field.
-     * @param time The current day/night cycle.
+     * @param step The number of the day step.
      */
-    public void act(Field currentField, Field nextFieldState, Time time)
+    void wake(Field currentField, Field nextFieldState, int step)
     {
-        if (time == Time.DAY) {
-            // We reset the plant whenever there are no more
-            // leaf cells, i.e. prey ate the entire plant.
-            if (growthState >= PHASE_2_AGE && leafCells.isEmpty()) {
-                resetPlant();
-            }
+        if (currentField.getPlantAt(getLocation()) != this) {
+            // The plant is no longer in the field.
+            return;
+        }
+        // On the day steps slept through, the plant only grew.
+        growthState += step - 1 - countedStep;
+        dayStep(currentField, nextFieldState);
+        countedStep = step;
+        scheduleNext();
+    }
 
-            // Increments the growthState by one.
-            grow();
-
-            // Changes the phase and grows the plant on the grid
-            // if the growthState reaches the next phase age and
-            // the plant is valid to grow.
-            if (growthState == PHASE_2_AGE && validPhase(2)) {
-                changePhase(2);
-                handleGrowth(currentField, nextFieldState);
-            } else if (growthState == PHASE_3_AGE && validPhase(3)) {
-                changePhase(3);
-                handleGrowth(currentField, nextFieldState);
-            }
+    /**
+     * Have a schedule wake the plant from now on, whenever it next
+     * has something to do.
+     * @param schedule The schedule.
+     */
+    void adopt(PlantSchedule schedule)
+    {
+        this.schedule = schedule;
+        countedStep = schedule.getDayStep();
+        scheduleNext();
+    }
+
+    /**
+     * @return The day step at which the schedule next wakes the plant.
+     */
+    int getWakeStep()
+    {
+        return wakeStep;
+    }
+
+    /**
+     * Ask the schedule to wake the plant on the next day step at which
+     * it has something to do, if there is one before its leaves are
+     * eaten.
+     */
+    private void scheduleNext()
+    {
+        int wait;
+        if (growthState >= PHASE_2_AGE && !hasLeaves()) {
+            // To be reset.
+            wait = 1;
+        }
+        else if (growthState < PHASE_2_AGE && validPhase(2)) {
+            wait = PHASE_2_AGE - growthState;
+        }
+        else if (growthState < PHASE_3_AGE && validPhase(3)) {
+            wait = PHASE_3_AGE - growthState;
         }
+        else {
+            return;
+        }
+        wakeAt(countedStep + wait);
+    }
 
-        nextFieldState.placePlant(this, getLocation());
+    /**
+     * Ask the schedule to wake the plant on a given day step, instead
+     * of any it was to be woken on before.
+     * @param step The number of the day step.
+     */
+    private void wakeAt(int step)
+    {
+        wakeStep = step;
+        schedule.add(this, step);
+    }
+
+    /**
+     * The plant's work on a day step. It increments the age
+     * and goes to next phase when plant is old enough.
+     * @param currentField The field currently occupied.
+     * @param nextFieldState The updated field.
+     */
+    private void dayStep(Field currentField, Field nextFieldState)
+    {
+        // We reset the plant whenever there are no more
+        // leaf cells, i.e. prey ate the entire plant.
+        if (growthState >= PHASE_2_AGE && !hasLeaves()) {
+            resetPlant();
+        }
+
+        // Increments the growthState by one.
+        grow();
+
+        // Changes the phase and grows the plant on the grid
+        // if the growthState reaches the next phase age and
+        // the plant is valid to grow.
+        if (growthState == PHASE_2_AGE && validPhase(2)) {
+            changePhase(2);
+            handleGrowth(currentField, nextFieldState);
+        } else if (growthState == PHASE_3_AGE && validPhase(3)) {
+            changePhase(3);
+            handleGrowth(currentField, nextFieldState);
+        }
     }
 
     /**
@@ -100,7 +201,16 @@ public abstract class CorePlant extends Plant
 
         // We clear the leaf cells list in order to add more leaf cells
         // if we reach phase 3.
-        if (phase == 3) leafCells.clear();
+        if (phase == 3) {
+            leafCells.clear();
+            leafCount = 0;
+            leafGeneration ^= 1;
+        }
+
+        if (nextFieldState.hasLeafArrays()) {
+            leafCount += nextFieldState.growLeaves(this, minOffSet, leafGeneration);
+            return;
+        }
 
         // Adds the leaf cells to the grid and the plant in either 2x2
         // or 3x3 format.
@@ -124,7 +234,40 @@ public abstract class CorePlant extends Plant
      */
     public void removeLeafCell(LeafCell leafCell)
     {
-        leafCells.remove(leafCell);
+        if (leafCells.remove(leafCell) && leafCells.isEmpty()) {
+            leavesEaten();
+        }
+    }
+
+    /**
+     * Take an eaten leaf kept in a field's leaf arrays off the count
+     * of leaves, unless it belongs to an older generation.
+     * @param generation The generation of the eaten leaf.
+     */
+    void removeLeaf(int generation)
+    {
+        if (generation == leafGeneration && --leafCount == 0) {
+            leavesEaten();
+        }
+    }
+
+    /**
+     * Have the plant reset on the next day step, now that its leaves
+     * have all been eaten, if it is woken by a schedule.
+     */
+    private void leavesEaten()
+    {
+        if (schedule != null) {
+            wakeAt(schedule.getDayStep() + 1);
+        }
+    }
+
+    /**
+     * @return Whether the plant has leaves that have not been eaten.
+     */
+    private boolean hasLeaves()
+    {
+        return !leafCells.isEmpty() || leafCount > 0;
     }
 
     /**
@@ -155,10 +298,49 @@ public abstract class CorePlant extends Plant
      */
     private void addLeafCell(Location location, Field nextFieldState) {
         LeafCell newLeafCell = new LeafCell(location, this);
-        nextFieldState.placePlant(newLeafCell, location);
+        // A leaf that would have been placed over again had the plants
+        // grown one by one is not placed, but the plant still counts it.
+        if (outranks(nextFieldState.getPlantAt(location))) {
+            nextFieldState.placePlant(newLeafCell, location);
+        }
         leafCells.add(newLeafCell);
     }
 
+    /**
+     * Checks whether a leaf grown by the plant replaces what is in its
+     * cell, which it does when plants growing one by one would have
+     * placed the leaf after it.
+     * @param occupant The plant in the cell, or null.
+     * @return true if the leaf replaces the occupant.
+     */
+    private boolean outranks(Plant occupant)
+    {
+        if (occupant instanceof LeafCell leafCell) {
+            // A plant's leaves come before it, oldest first.
+            return compareCentres(leafCell.getParent()) >= 0;
+        }
+        else if (occupant instanceof CorePlant corePlant) {
+            return compareCentres(corePlant) > 0;
+        }
+        return true;
+    }
+
+    /**
+     * Compares the centres of this plant and another in reading order.
+     * @param other The other plant.
+     * @return A positive number if this plant's centre comes later,
+     *         zero if it is the same plant, and a negative number otherwise.
+     */
+    private int compareCentres(CorePlant other)
+    {
+        Location location = getLocation();
+        Location otherLocation = other.getLocation();
+        if (location.row() != otherLocation.row()) {
+            return Integer.compare(location.row(), otherLocation.row());
+        }
+        return Integer.compare(location.col(), otherLocation.col());
+    }
+
     /**
      * Checks whether the final evolution of the plant is 2x2 or 3x3.
      * @param phase The phase of the plant.
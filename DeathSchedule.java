@@ -0,0 +1,188 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kill animals on the steps at which they die of old age or hunger,
+ * all at once before the animals of the step act, instead of having
+ * every animal count its age and hunger on every step. An animal
+ * works out the step it dies on from the step it was born and the
+ * step it last ate.
+ *
+ * The schedule is a timer wheel with one slot per step, used round
+ * and round. It grows whenever an animal is due more steps away than
+ * it has slots, so every animal in a slot is due on the step the slot
+ * comes round at. Eating only puts an animal's death off, so an animal
+ * that has eaten is left where it is, and moved on to its new step
+ * when its slot comes round. An animal that is killed some other way,
+ * or replaced in the field, is taken out of its slot at once, so that
+ * the schedule does not keep it from being collected.
+ *
+ * Animals may change the schedule from several threads at once, as
+ * they do when a TiledStepEngine runs them.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class DeathSchedule
+{
+    // The number of slots the schedule starts with.
+    private static final int INITIAL_SLOTS = 256;
+
+    // The animals to kill in each slot. The number of slots is a
+    // power of two.
+    private List<List<Animal>> slots;
+    // An empty list to put in place of a slot being emptied.
+    private List<Animal> spare;
+    // The last step whose animals have been killed.
+    private int step;
+    // The field the animals of the last step were placed in, and how
+    // many times it had been cleared when they were.
+    private Field scheduledField;
+    private int scheduledClearCount;
+
+    /**
+     * Create an empty schedule.
+     */
+    public DeathSchedule()
+    {
+        slots = newSlots(INITIAL_SLOTS);
+        spare = new ArrayList<>();
+    }
+
+    /**
+     * Kill the animals of the current field that die of old age or
+     * hunger on a step. The animals of a field the schedule does not
+     * hold yet, or one that has been cleared and refilled since, are
+     * taken on first. Call this before the animals of the step act.
+     * @param currentField The current state of the field.
+     * @param nextFieldState The empty field in which the next state is built.
+     * @param step The number of the step.
+     */
+    public void start(Field currentField, Field nextFieldState, int step)
+    {
+        if (currentField != scheduledField
+                || currentField.getClearCount() != scheduledClearCount) {
+            adopt(currentField, step);
+        }
+        scheduledField = nextFieldState;
+        scheduledClearCount = nextFieldState.getClearCount();
+
+        this.step = step;
+        int slot = step & (slots.size() - 1);
+        List<Animal> due = slots.get(slot);
+        // The slot is emptied first, so killing an animal does not
+        // take it out of the list being walked.
+        slots.set(slot, spare);
+        for (Animal anAnimal : due) {
+            if (anAnimal.isAlive()) {
+                int deathStep = anAnimal.getDeathStep();
+                if (deathStep <= step) {
+                    currentField.killAnimal(anAnimal);
+                }
+                else {
+                    add(anAnimal, deathStep);
+                }
+            }
+        }
+        due.clear();
+        spare = due;
+    }
+
+    /**
+     * Forget every animal, and take on the live animals of a field.
+     * Any that are overdue are killed at once.
+     * @param field The field.
+     * @param step The number of the step about to be run.
+     */
+    private void adopt(Field field, int step)
+    {
+        for (List<Animal> slot : slots) {
+            slot.clear();
+        }
+        this.step = step - 1;
+        for (Animal anAnimal : field.getAnimals()) {
+            if (anAnimal.getDeathStep() <= this.step) {
+                field.killAnimal(anAnimal);
+            }
+            else {
+                anAnimal.adopt(this);
+            }
+        }
+    }
+
+    /**
+     * Kill an animal on a given step, unless it has eaten by then.
+     * @param anAnimal The animal, which is not in the schedule.
+     * @param deathStep The number of the step, after the last one
+     *                  whose animals have been killed.
+     */
+    synchronized void add(Animal anAnimal, int deathStep)
+    {
+        if (deathStep <= step) {
+            throw new IllegalArgumentException("Cannot kill an animal at step " + deathStep
+                                               + " after step " + step);
+        }
+        while (deathStep - step >= slots.size()) {
+            grow();
+        }
+        anAnimal.setScheduledDeath(deathStep);
+        place(anAnimal);
+    }
+
+    /**
+     * Take an animal out of the schedule, if it is in it.
+     * @param anAnimal The animal.
+     */
+    synchronized void remove(Animal anAnimal)
+    {
+        List<Animal> slot = slots.get(anAnimal.getScheduledDeath() & (slots.size() - 1));
+        int index = anAnimal.getScheduleIndex();
+        // An animal whose slot is being emptied is no longer in it.
+        if (index < slot.size() && slot.get(index) == anAnimal) {
+            Animal last = slot.remove(slot.size() - 1);
+            if (last != anAnimal) {
+                slot.set(index, last);
+                last.setScheduleIndex(index);
+            }
+        }
+    }
+
+    /**
+     * Add an animal to the slot of its scheduled death.
+     * @param anAnimal The animal.
+     */
+    private void place(Animal anAnimal)
+    {
+        List<Animal> slot = slots.get(anAnimal.getScheduledDeath() & (slots.size() - 1));
+        anAnimal.setScheduleIndex(slot.size());
+        slot.add(anAnimal);
+    }
+
+    /**
+     * Double the number of slots, moving each animal to the slot of
+     * its scheduled death.
+     */
+    private void grow()
+    {
+        List<List<Animal>> animals = slots;
+        slots = newSlots(animals.size() * 2);
+        for (List<Animal> slot : animals) {
+            for (Animal anAnimal : slot) {
+                place(anAnimal);
+            }
+        }
+    }
+
+    /**
+     * @param count The number of slots.
+     * @return A list of that many empty slots.
+     */
+    private static List<List<Animal>> newSlots(int count)
+    {
+        List<List<Animal>> slots = new ArrayList<>(count);
+        for (int slot = 0; slot < count; slot++) {
+            slots.add(new ArrayList<>());
+        }
+        return slots;
+    }
+}
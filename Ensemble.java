@@ -0,0 +1,156 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Run many replicates of the same simulation in one program. Each
+ * replicate is a Simulator without a view, with a seed of its own
+ * made from the ensemble's seed and the replicate's number, so a
+ * replicate gives the same results whichever thread runs it and
+ * whatever else runs at the same time. Replicates run on an executor
+ * and report their population after every step to an EnsembleStats.
+ *
+ * Every replicate runs for the full number of steps, even once it is
+ * no longer viable, so that each step is summarised over all of them.
+ *
+ * Run it from the command line as
+ *
+ *     java Ensemble [replicates [threads [depth width steps]]]
+ *
+ * which prints the mean and 95% confidence band of each population
+ * and the number of replicates finished per second.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class Ensemble
+{
+    // The settings used unless others are given on the command line.
+    private static final int DEFAULT_REPLICATES = 32;
+    private static final int DEFAULT_DEPTH = 100;
+    private static final int DEFAULT_WIDTH = 150;
+    private static final int DEFAULT_STEPS = 200;
+    // The number of steps between rows of the printed summary.
+    private static final int PRINT_INTERVAL = 50;
+
+    // The size of the field and length of each replicate.
+    private final int depth, width, steps;
+
+    /**
+     * Create an ensemble of simulations of one size and length.
+     * @param depth The depth of each field.
+     * @param width The width of each field.
+     * @param steps The number of steps each replicate runs.
+     */
+    public Ensemble(int depth, int width, int steps)
+    {
+        this.depth = depth;
+        this.width = width;
+        this.steps = steps;
+    }
+
+    /**
+     * Run the replicates on the given executor and wait for them all.
+     * The executor bounds how many run at once; each replicate holds
+     * two fields only while it runs.
+     * @param replicates The number of replicates.
+     * @param seed The seed from which each replicate's seed is made.
+     * @param executor The executor that runs the replicates.
+     * @return The summary of every replicate's populations.
+     */
+    public EnsembleStats run(int replicates, long seed, ExecutorService executor)
+    {
+        EnsembleStats stats = new EnsembleStats(steps);
+        List<Future<?>> running = new ArrayList<>();
+        for (int replicate = 0; replicate < replicates; replicate++) {
+            long replicateSeed = RandomStream.key(seed, replicate);
+            running.add(executor.submit(() -> runReplicate(replicateSeed, stats)));
+        }
+        try {
+            for (Future<?> future : running) {
+                future.get();
+            }
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for replicates", e);
+        }
+        catch(ExecutionException e) {
+            throw new IllegalStateException("A replicate failed", e.getCause());
+        }
+        finally {
+            for (Future<?> future : running) {
+                future.cancel(true);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Run the replicates on a pool with one thread per processor.
+     * @param replicates The number of replicates.
+     * @param seed The seed from which each replicate's seed is made.
+     * @return The summary of every replicate's populations.
+     */
+    public EnsembleStats run(int replicates, long seed)
+    {
+        ExecutorService executor =
+            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return run(replicates, seed, executor);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Run one replicate, reporting its population after every step.
+     * @param seed The seed of the replicate.
+     * @param stats Where to report the populations.
+     */
+    private void runReplicate(long seed, EnsembleStats stats)
+    {
+        Simulator simulator = Simulator.withoutView(depth, width, seed);
+        stats.add(0, simulator.getPopulation());
+        for (int step = 1; step <= steps; step++) {
+            simulator.simulateOneStep();
+            stats.add(step, simulator.getPopulation());
+        }
+        stats.replicateFinished();
+    }
+
+    /**
+     * Run an ensemble and print its summary.
+     * @param args The number of replicates and of threads, then the
+     *             depth, width and number of steps.
+     */
+    public static void main(String[] args)
+    {
+        int replicates = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_REPLICATES;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                                       : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DEPTH;
+        int width = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_WIDTH;
+        int steps = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_STEPS;
+
+        Ensemble ensemble = new Ensemble(depth, width, steps);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            EnsembleStats stats = ensemble.run(replicates, Randomizer.getSeed(), executor);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            stats.print(PRINT_INTERVAL);
+            System.out.printf("%d replicates of %d steps on %d threads in %.1f s: "
+                              + "%.2f replicates/sec%n",
+                              stats.replicates(), steps, threads, seconds,
+                              stats.replicates() / seconds);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
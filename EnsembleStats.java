@@ -0,0 +1,184 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summarise the populations of many replicates of a simulation, step
+ * by step, as the replicates report them. For every step and every
+ * series (each species, infected animals and leaves) it keeps the
+ * number of observations, the sum and the sum of squares, from which
+ * the mean and a 95% confidence band for the mean follow. Nothing is
+ * kept per replicate, so the memory used does not grow with their
+ * number.
+ *
+ * The sums are exact integers, so the results do not depend on the
+ * order in which replicates report. A species missing from a
+ * population counts as zero. Replicates may report from several
+ * threads at once.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class EnsembleStats
+{
+    // The quantile of the normal distribution for a 95% band.
+    private static final double Z_95 = 1.959964;
+    // The names of the series that are not species.
+    private static final String INFECTED = "Infected";
+    private static final String LEAVES = "Leaves";
+
+    // The number of steps of each replicate, after the starting state.
+    private final int steps;
+    // The number of populations reported for each step.
+    private final long[] observations;
+    // The sum and the sum of squares of each series at each step.
+    private final Map<String, long[]> sums;
+    private final Map<String, long[]> sumsOfSquares;
+    // The number of replicates that have finished.
+    private int finished;
+
+    /**
+     * Create an empty summary.
+     * @param steps The number of steps of each replicate, after the
+     *              starting state, which is step 0.
+     */
+    public EnsembleStats(int steps)
+    {
+        this.steps = steps;
+        observations = new long[steps + 1];
+        sums = new LinkedHashMap<>();
+        sumsOfSquares = new LinkedHashMap<>();
+    }
+
+    /**
+     * Add the population of one replicate at one step.
+     * @param step The step, from 0 for the starting state.
+     * @param population The population at that step.
+     */
+    public synchronized void add(int step, Population population)
+    {
+        observations[step]++;
+        for (Map.Entry<Class<?>, Integer> entry : population.animalCounts().entrySet()) {
+            addTo(entry.getKey().getSimpleName(), step, entry.getValue());
+        }
+        addTo(INFECTED, step, population.infected());
+        addTo(LEAVES, step, population.leaves());
+    }
+
+    /**
+     * Record that a replicate has reported its last step.
+     */
+    public synchronized void replicateFinished()
+    {
+        finished++;
+    }
+
+    /**
+     * @return The number of replicates that have finished.
+     */
+    public synchronized int replicates()
+    {
+        return finished;
+    }
+
+    /**
+     * @return The number of steps of each replicate.
+     */
+    public int steps()
+    {
+        return steps;
+    }
+
+    /**
+     * @return The names of the series seen so far, species first.
+     */
+    public synchronized List<String> names()
+    {
+        List<String> names = new ArrayList<>();
+        for (String name : sums.keySet()) {
+            if (!name.equals(INFECTED) && !name.equals(LEAVES)) {
+                names.add(name);
+            }
+        }
+        names.add(INFECTED);
+        names.add(LEAVES);
+        return names;
+    }
+
+    /**
+     * Return the mean of a series at a step over the replicates that
+     * have reported it.
+     * @param name The name of the series.
+     * @param step The step.
+     * @return The mean, or 0 if nothing has been reported.
+     */
+    public synchronized double mean(String name, int step)
+    {
+        long n = observations[step];
+        long[] sum = sums.get(name);
+        if (n == 0 || sum == null) {
+            return 0;
+        }
+        return (double) sum[step] / n;
+    }
+
+    /**
+     * Return half the width of the 95% confidence band for the mean of
+     * a series at a step, using the normal approximation.
+     * @param name The name of the series.
+     * @param step The step.
+     * @return The half width, or 0 if fewer than two replicates have
+     *         reported the step.
+     */
+    public synchronized double halfWidth(String name, int step)
+    {
+        long n = observations[step];
+        long[] sum = sums.get(name);
+        if (n < 2 || sum == null) {
+            return 0;
+        }
+        // n * sumsq - sum^2 is n(n - 1) times the sample variance.
+        double spread = (double) n * sumsOfSquares.get(name)[step]
+                        - (double) sum[step] * sum[step];
+        double variance = Math.max(0, spread) / ((double) n * (n - 1));
+        return Z_95 * Math.sqrt(variance / n);
+    }
+
+    /**
+     * Print the mean and confidence band of every series at every
+     * interval steps and at the last step, one row per step.
+     * @param interval The number of steps between rows.
+     */
+    public synchronized void print(int interval)
+    {
+        List<String> names = names();
+        StringBuilder header = new StringBuilder(String.format("%6s", "step"));
+        for (String name : names) {
+            header.append(String.format(" %18s", name));
+        }
+        System.out.println(header);
+        for (int step = 0; step <= steps; step++) {
+            if (step % interval == 0 || step == steps) {
+                StringBuilder row = new StringBuilder(String.format("%6d", step));
+                for (String name : names) {
+                    row.append(String.format(" %9.1f +- %5.1f",
+                                             mean(name, step), halfWidth(name, step)));
+                }
+                System.out.println(row);
+            }
+        }
+    }
+
+    /**
+     * Add one value to a series.
+     * @param name The name of the series.
+     * @param step The step.
+     * @param value The value.
+     */
+    private void addTo(String name, int step, long value)
+    {
+        sums.computeIfAbsent(name, key -> new long[steps + 1])[step] += value;
+        sumsOfSquares.computeIfAbsent(name, key -> new long[steps + 1])[step] += value * value;
+    }
+}
@@ -2,7 +2,18 @@ import java.util.*;
 
 /**
  * Represent a rectangular grid of field positions.
- * Each position is able to store a pair of Animal and Plant.
+ * Each position is able to store one Animal and one Plant. The
+ * positions are kept in flat row-major arrays, so that a location
+ * (row, col) is stored at index row * width + col.
+ *
+ * Leaves are either LeafCell objects in the plant layer, like the
+ * centres of their plants, or, for a field made with leaf arrays,
+ * just a species byte and an owner in two arrays, with only the
+ * centres kept as objects. A field with leaf arrays takes far less
+ * memory when there are many leaves, and its leaves are grown in
+ * blocks straight into the arrays; runs are the same either way.
+ * Leaves in arrays do not act, so such a field must get its plants
+ * from the last step through carryPlantsFrom, as PlantStage does.
  * 
  * @author David J. Barnes, Aryan Sanvee Vijayan, Alexander Sukhin and Michael Kölling
  * @version 02/02/2025
@@ -13,12 +24,57 @@ public class Field
     private static final Random rand = Randomizer.getRandom();
     // The dimensions of the field.
     private final int depth, width;
-    // Each location holds a pair of Animal, Plant.
-    private final Map<Location, Pair<Animal, Plant>> field = new HashMap<>();
-    // The animals.
-    private final List<Animal> animals = new ArrayList<>();
-    // The plants.
-    private final List<Plant> plants = new ArrayList<>();
+    // The animal at each location, indexed by row * width + col.
+    private final Animal[] animalCells;
+    // The plant at each location, indexed by row * width + col.
+    private final Plant[] plantCells;
+    // The animals, in the order they were placed.
+    private final OrganismList<Animal> animals;
+    // The plants, in the order they were placed.
+    private final OrganismList<Plant> plants;
+    // The locations holding a live animal.
+    private final BitGrid occupiedCells;
+    // The locations holding a leaf.
+    private final BitGrid leafCells;
+    // For a field with leaf arrays, the species number plus one of the
+    // plant owning the leaf at each location, or 0 where there is no
+    // leaf; null if leaves are LeafCell objects.
+    private final byte[] leafSpecies;
+    // For a field with leaf arrays, the owner of the leaf at each
+    // location: the index of its plant's centre shifted left by one,
+    // with the plant's leaf generation in the lowest bit.
+    private final int[] leafOwners;
+    // The locations of leaves eaten during the current step, which
+    // stay in the field until settleEatenLeaves is called.
+    private final BitGrid eatenLeaves;
+    // The locations holding a live infected animal.
+    private final BitGrid infectedCells;
+    // The locations holding an infected animal killed after it was
+    // placed, which still infects the animals next to it that check
+    // their neighbours one by one.
+    private final BitGrid killedInfectedCells;
+    // Scratch grid of the locations next to an infected animal,
+    // created the first time infection is spread over the grid.
+    private BitGrid exposedCells;
+    // The locations holding a live female and a live male animal of
+    // each species, indexed by species number.
+    private BitGrid[] femaleCells = new BitGrid[0];
+    private BitGrid[] maleCells = new BitGrid[0];
+    // The number of live animals of each species, indexed by species
+    // number. These and the counts below are kept up to date as
+    // organisms are placed, replaced and killed.
+    private Counter[] animalCounters = new Counter[0];
+    // The number of live prey and live predators.
+    private int preyCount, predatorCount;
+    // The number of live infected animals.
+    private int infected;
+    // The number of leaves (edible plants).
+    private int leaves;
+    // The number of times the field has been cleared.
+    private int clearCount;
+    // Whether several threads are placing animals at the same time.
+    // While they are, only the cells and occupancy grids are updated.
+    private boolean concurrent;
 
     /**
      * Represent a field of the given dimensions.   
@@ -26,9 +82,44 @@ public class Field
      * @param width The width of the field.
      */
     public Field(int depth, int width)
+    {
+        this(depth, width, false);
+    }
+
+    /**
+     * Represent a field of the given dimensions, keeping its leaves
+     * either as LeafCell objects or in arrays. Plants can only be
+     * carried between two fields that keep their leaves the same way.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param leafArrays Whether to keep the leaves in arrays.
+     */
+    public Field(int depth, int width, boolean leafArrays)
     {
         this.depth = depth;
         this.width = width;
+        animalCells = new Animal[depth * width];
+        plantCells = new Plant[depth * width];
+        animals = new OrganismList<>(depth * width);
+        plants = new OrganismList<>(depth * width);
+        occupiedCells = new BitGrid(depth, width);
+        leafCells = new BitGrid(depth, width);
+        eatenLeaves = new BitGrid(depth, width);
+        // Animals on different threads may eat leaves in the same row.
+        eatenLeaves.setAtomic(true);
+        infectedCells = new BitGrid(depth, width);
+        killedInfectedCells = new BitGrid(depth, width);
+        leafSpecies = leafArrays ? new byte[depth * width] : null;
+        leafOwners = leafArrays ? new int[depth * width] : null;
+    }
+
+    /**
+     * @return Whether the field keeps its leaves in arrays rather than
+     *         as LeafCell objects.
+     */
+    public boolean hasLeafArrays()
+    {
+        return leafSpecies != null;
     }
 
     /**
@@ -42,20 +133,27 @@ public class Field
     {
         // Ensures location is not null.
         assert location != null;
+        int index = indexOf(location);
 
-        // Retrieves the pair at location if not null. If there
-        // is no pair in the location, retrieves a null pair.
-        Pair<Animal, Plant> existingPair = field.getOrDefault(location, new Pair<>(null, null));
-
-        // Removes the animal from the current pair.
-        if (existingPair.first() != null) {
-            animals.remove(existingPair.first());
+        // Any animal previously stored at this location is
+        // replaced in the list and the counts as well.
+        Animal existing = animalCells[index];
+        if (existing != null && existing.isAlive()) {
+            uncount(existing, location);
+            if (existing != anAnimal) {
+                existing.leaveSchedule();
+            }
+        }
+        else if (existing != null && existing.isInfected()) {
+            killedInfectedCells.clear(location.row(), location.col());
+        }
+        animalCells[index] = anAnimal;
+        if (!concurrent) {
+            animals.place(index, anAnimal);
+        }
+        if (anAnimal.isAlive()) {
+            count(anAnimal, location);
         }
-
-        // Creates a new pair with the new animal and the existing plant.
-        Pair<Animal, Plant> newPair = new Pair<>(anAnimal, existingPair.second());
-        field.put(location, newPair);
-        animals.add(anAnimal);
     }
 
     /**
@@ -64,25 +162,288 @@ public class Field
      * be lost.
      * @param plant The plant to be placed.
      * @param location Where to place the plant.
+     * @throws IllegalArgumentException If the plant is a LeafCell and
+     *         the field keeps its leaves in arrays.
      */
     public void placePlant(Plant plant, Location location)
     {
         // Ensures location is not null.
         assert location != null;
+        int index = indexOf(location);
+        if (leafSpecies != null && plant instanceof LeafCell) {
+            throw new IllegalArgumentException("The field keeps its leaves in arrays");
+        }
+
+        // Any plant previously stored at this location is
+        // replaced in the list and the counts as well.
+        if (plantCells[index] instanceof LeafCell) {
+            leaves--;
+            leafCells.clear(location.row(), location.col());
+        }
+        else if (leafSpecies != null && leafSpecies[index] != 0) {
+            removeLeaf(index);
+        }
+        plantCells[index] = plant;
+        plants.place(index, plant);
+        if (plant instanceof LeafCell) {
+            leaves++;
+            leafCells.set(location.row(), location.col());
+        }
+    }
+
+    /**
+     * Grow leaves for a plant in the cells of a block around its
+     * centre, in a field that keeps its leaves in arrays. A leaf only
+     * replaces the plant's own leaves, and plants and leaves whose
+     * centre comes before the plant's in reading order (see CorePlant).
+     * @param plant The plant growing the leaves.
+     * @param minOffset The offset of the block's first row and column
+     *                  from the centre; the block ends one row and
+     *                  column past the centre.
+     * @param generation The plant's leaf generation, 0 or 1.
+     * @return The number of leaves grown, including those that
+     *         replaced nothing.
+     */
+    int growLeaves(CorePlant plant, int minOffset, int generation)
+    {
+        int centreRow = plant.getLocation().row();
+        int centreCol = plant.getLocation().col();
+        int centre = centreRow * width + centreCol;
+        byte species = (byte) (plant.getSpeciesIndex() + 1);
+        int owner = centre << 1 | generation;
+        int grown = 0;
+        for (int row = Math.max(centreRow + minOffset, 0); row <= Math.min(centreRow + 1, depth - 1); row++) {
+            for (int col = Math.max(centreCol + minOffset, 0); col <= Math.min(centreCol + 1, width - 1); col++) {
+                int index = row * width + col;
+                if (index == centre) {
+                    continue;
+                }
+                grown++;
+                // Only the centres of plants are kept as objects, and
+                // a leaf's owner holds the index of its plant's centre.
+                if (plantCells[index] != null ? index > centre
+                    : leafSpecies[index] != 0 && leafOwners[index] >> 1 > centre) {
+                    continue;
+                }
+                if (plantCells[index] != null) {
+                    removePlant(index);
+                }
+                if (leafSpecies[index] == 0) {
+                    leaves++;
+                    leafCells.set(row, col);
+                }
+                leafSpecies[index] = species;
+                leafOwners[index] = owner;
+            }
+        }
+        return grown;
+    }
+
+    /**
+     * Return the species of the plant owning the leaf at the given
+     * location, if there is a leaf there.
+     * @param location Where in the field.
+     * @return The species number of the leaf's plant, or -1 if there is no leaf.
+     */
+    public int getLeafSpecies(Location location)
+    {
+        return getLeafSpecies(location.row(), location.col());
+    }
+
+    /**
+     * Return the species of the plant owning the leaf at the given
+     * row and column, if there is a leaf there.
+     * @param row The row of the location.
+     * @param col The column of the location.
+     * @return The species number of the leaf's plant, or -1 if there is no leaf.
+     */
+    public int getLeafSpecies(int row, int col)
+    {
+        int index = row * width + col;
+        if (leafSpecies != null) {
+            return leafSpecies[index] - 1;
+        }
+        if (plantCells[index] instanceof LeafCell leafCell) {
+            return leafCell.parentSpeciesIndex();
+        }
+        return -1;
+    }
 
-        // Retrieves the pair at location if not null. If there
-        // is no pair in the location, retrieves a null pair.
-        Pair<Animal, Plant> existingPair = field.getOrDefault(location, new Pair<>(null, null));
+    /**
+     * Return whether the leaf at the given location has been eaten
+     * during the current step.
+     * @param location The location of a leaf.
+     * @return true if the leaf has been eaten.
+     */
+    public boolean isLeafEaten(Location location)
+    {
+        return eatenLeaves.get(location.row(), location.col());
+    }
+
+    /**
+     * Mark the leaf at the given location as eaten. The leaf and its
+     * plant are left as they are until settleEatenLeaves is called,
+     * so that plants growing at the same time as the animals act see
+     * them as they were at the start of the step.
+     * @param location The location of the leaf.
+     */
+    public void eatLeaf(Location location)
+    {
+        eatenLeaves.set(location.row(), location.col());
+    }
 
-        // Removes the plant from the current pair.
-        if (existingPair.second() != null) {
-            plants.remove(existingPair.second());
+    /**
+     * Remove the leaves eaten during the step from their plants and
+     * from the next field state. A leaf that its plant has replaced
+     * in the next field state with a newly grown one is only removed
+     * from the plant. Call this once both the animals and the plants
+     * of the step have acted.
+     * @param nextFieldState The field in which the next state was built.
+     */
+    public void settleEatenLeaves(Field nextFieldState)
+    {
+        for (int row = 0; row < depth; row++) {
+            // Read the row in runs of 63, the most bits() returns.
+            for (int fromCol = 0; fromCol < width; fromCol += 63) {
+                long eaten = eatenLeaves.bits(row, fromCol, 63);
+                while (eaten != 0) {
+                    int index = row * width + fromCol + Long.numberOfTrailingZeros(eaten);
+                    if (leafSpecies != null) {
+                        settleEatenLeaf(nextFieldState, index);
+                    }
+                    else {
+                        LeafCell leafCell = (LeafCell) plantCells[index];
+                        leafCell.removeLeaf();
+                        if (nextFieldState.plantCells[index] == leafCell) {
+                            nextFieldState.removePlant(index);
+                        }
+                    }
+                    eaten &= eaten - 1;
+                }
+            }
         }
+        eatenLeaves.clearAll();
+    }
 
-        // Creates a new pair with the existing animal and the new plant.
-        Pair<Animal, Plant> newPair = new Pair<>(existingPair.first(), plant);
-        field.put(location, newPair);
-        plants.add(plant);
+    /**
+     * Remove an eaten leaf kept in the arrays from its plant and from
+     * the next field state. The owner tells the leaf apart from one
+     * grown in its place during the step: a plant growing over its own
+     * leaves starts a new generation, and another plant's leaf has
+     * another centre.
+     * @param nextFieldState The field in which the next state was built.
+     * @param index The index of the leaf's cell.
+     */
+    private void settleEatenLeaf(Field nextFieldState, int index)
+    {
+        int owner = leafOwners[index];
+        // A plant whose centre a leaf has grown over is no longer in the field.
+        if (plantCells[owner >> 1] instanceof CorePlant plant) {
+            plant.removeLeaf(owner & 1);
+        }
+        if (nextFieldState.leafSpecies[index] != 0 && nextFieldState.leafOwners[index] == owner) {
+            nextFieldState.removeLeaf(index);
+        }
+    }
+
+    /**
+     * Remove the plant stored at an index, if there is one.
+     * @param index The index of the cell.
+     */
+    private void removePlant(int index)
+    {
+        if (plantCells[index] instanceof LeafCell) {
+            leaves--;
+            leafCells.clear(index / width, index % width);
+        }
+        plantCells[index] = null;
+        plants.vacate(index);
+    }
+
+    /**
+     * Remove the leaf kept in the arrays at an index.
+     * @param index The index of the cell, which holds a leaf.
+     */
+    private void removeLeaf(int index)
+    {
+        leafSpecies[index] = 0;
+        leaves--;
+        leafCells.clear(index / width, index % width);
+    }
+
+    /**
+     * Prepare for several threads to place, replace and kill animals
+     * in this field at the same time. Until finishConcurrentUpdates is
+     * called, the threads must work on locations far enough apart that
+     * they never touch the same cell, and the list and counts of
+     * animals must not be used. Plants may still be placed, from one
+     * other thread at a time.
+     */
+    public void beginConcurrentUpdates()
+    {
+        // Create the grids of every species known so far, so that
+        // none are created while the threads are running.
+        for (int species = Species.count() - 1; species >= 0; species--) {
+            if (Animal.class.isAssignableFrom(Species.classOf(species))) {
+                ensureSpecies(species);
+            }
+        }
+        for (BitGrid cells : allGrids()) {
+            cells.setAtomic(true);
+        }
+        concurrent = true;
+    }
+
+    /**
+     * End a period of concurrent updates. The list of animals and the
+     * animal counts are rebuilt from the cells, so the list is
+     * afterwards in row-major order of location.
+     */
+    public void finishConcurrentUpdates()
+    {
+        concurrent = false;
+        for (BitGrid cells : allGrids()) {
+            cells.setAtomic(false);
+        }
+
+        animals.clear();
+        for (Counter counter : animalCounters) {
+            if (counter != null) {
+                counter.reset();
+            }
+        }
+        preyCount = 0;
+        predatorCount = 0;
+        infected = 0;
+        for (int index = 0; index < animalCells.length; index++) {
+            Animal anAnimal = animalCells[index];
+            if (anAnimal != null && anAnimal.isAlive()) {
+                animals.place(index, anAnimal);
+                addToCounts(anAnimal);
+            }
+        }
+    }
+
+    /**
+     * Kill an animal. If the animal has already been placed in this
+     * field, it is no longer counted as part of the population, though
+     * if it is infected it still infects the animals next to it that
+     * check their neighbours one by one.
+     * Animals killed by other animals during a step must be killed
+     * through the field being built, so that its counts stay correct.
+     * @param anAnimal The animal to kill.
+     */
+    public void killAnimal(Animal anAnimal)
+    {
+        Location location = anAnimal.getLocation();
+        if (anAnimal.isAlive() && location != null
+            && animalCells[indexOf(location)] == anAnimal) {
+            uncount(anAnimal, location);
+            if (anAnimal.isInfected()) {
+                killedInfectedCells.set(location.row(), location.col());
+            }
+        }
+        anAnimal.setDead();
     }
 
     /**
@@ -92,25 +453,46 @@ public class Field
      */
     public Animal getAnimalAt(Location location)
     {   
-        // Returns the animal at the given location if there is any, and
-        // returns null if there is none.
-        return field.containsKey(location) ? field.get(location).first() : null;
+        return animalCells[indexOf(location)];
+    }
+
+    /**
+     * Return the animal at the given row and column, if any.
+     * @param row The row of the location.
+     * @param col The column of the location.
+     * @return The animal at the given location, or null if there is none.
+     */
+    public Animal getAnimalAt(int row, int col)
+    {
+        return animalCells[row * width + col];
     }
 
     /**
      * Return the plant at the given location, if any.
+     * In a field with leaf arrays, only the centres of plants are found.
      * @param location Where in the field.
      * @return The plant at the given location, or null if there is none.
      */
     public Plant getPlantAt(Location location)
     {
-        // Returns the plant at the given location if there is any, and
-        // returns null if there is none.
-        return field.containsKey(location) ? field.get(location).second() : null;
+        return plantCells[indexOf(location)];
+    }
+
+    /**
+     * Return the plant at the given row and column, if any.
+     * In a field with leaf arrays, only the centres of plants are found.
+     * @param row The row of the location.
+     * @param col The column of the location.
+     * @return The plant at the given location, or null if there is none.
+     */
+    public Plant getPlantAt(int row, int col)
+    {
+        return plantCells[row * width + col];
     }
 
     /**
      * Get a shuffled list of the free adjacent locations of animals.
+     * Code on the step path should use getFreeAdjacentMask instead.
      * @param location Get locations adjacent to this.
      * @return A list of free adjacent locations.
      */
@@ -118,26 +500,158 @@ public class Field
     {
         // The list of free locations to be returned.
         List<Location> free = new LinkedList<>();
-        // The list of adjacent locations.
-        List<Location> adjacent = getAdjacentLocations(location);
-        for(Location next : adjacent) {
-
-            Pair<Animal, Plant> existingPair = field.get(next);
-
-            if (existingPair == null) {
-                free.add(next);
-            } else {
-                Animal anAnimal = existingPair.first();
-                // Includes null animals and dead animals to
-                // free adjacent locations.
-                if (anAnimal == null || !anAnimal.isAlive()) {
-                    free.add(next);
-                }
+        int freeCells = getFreeAdjacentMask(location);
+        for(int k : Neighbourhood.ADJACENT.randomOrder(rand)) {
+            if ((freeCells & (1 << k)) != 0) {
+                free.add(new Location(location.row() + Neighbourhood.ADJACENT.rowOffset(k),
+                                      location.col() + Neighbourhood.ADJACENT.colOffset(k)));
             }
         }
         return free;
     }
 
+    /**
+     * Return which of the locations adjacent to the given one are free,
+     * i.e. lie within the field and do not hold a live animal.
+     * @param location The location whose neighbours are checked.
+     * @return A mask in which bit k is set if cell k of
+     *         Neighbourhood.ADJACENT is free.
+     */
+    public int getFreeAdjacentMask(Location location)
+    {
+        int row = location.row();
+        int col = location.col();
+        return ~occupiedCells.adjacentMask(row, col) & insideMask(row, col);
+    }
+
+    /**
+     * Return which of the locations adjacent to the given one hold a leaf.
+     * @param location The location whose neighbours are checked.
+     * @return A mask in which bit k is set if cell k of
+     *         Neighbourhood.ADJACENT holds a leaf.
+     */
+    public int getLeafAdjacentMask(Location location)
+    {
+        return leafCells.adjacentMask(location.row(), location.col());
+    }
+
+    /**
+     * Return which of the locations adjacent to the given one hold an
+     * infected animal, live or killed after it was placed there.
+     * @param location The location whose neighbours are checked.
+     * @return A mask in which bit k is set if cell k of
+     *         Neighbourhood.ADJACENT holds an infected animal.
+     */
+    public int getInfectedAdjacentMask(Location location)
+    {
+        int row = location.row();
+        int col = location.col();
+        return infectedCells.adjacentMask(row, col)
+            | killedInfectedCells.adjacentMask(row, col);
+    }
+
+    /**
+     * Infect every live animal in this field that is next to an animal
+     * that was infected before the call. The infected locations are
+     * spread to their neighbours over the whole grid at once and then
+     * applied to the animals in one pass, so the result does not
+     * depend on the order of the animals.
+     */
+    public void spreadInfection()
+    {
+        if (exposedCells == null) {
+            exposedCells = new BitGrid(depth, width);
+        }
+        infectedCells.dilateInto(exposedCells);
+        // The animal list may hold empty slots until it is compacted.
+        for (Animal anAnimal : animals) {
+            if (anAnimal != null && anAnimal.isAlive() && !anAnimal.isInfected()) {
+                Location location = anAnimal.getLocation();
+                if (exposedCells.get(location.row(), location.col())
+                    && animalCells[indexOf(location)] == anAnimal) {
+                    anAnimal.infect();
+                    infected++;
+                    infectedCells.set(location.row(), location.col());
+                }
+            }
+        }
+    }
+
+    /**
+     * Return which of the locations adjacent to the given one hold a
+     * live animal of one species.
+     * @param speciesIndex The number of the species (see Species).
+     * @param location The location whose neighbours are checked.
+     * @return A mask in which bit k is set if cell k of
+     *         Neighbourhood.ADJACENT holds an animal of the species.
+     */
+    public int getSpeciesAdjacentMask(int speciesIndex, Location location)
+    {
+        if (speciesIndex >= femaleCells.length || femaleCells[speciesIndex] == null) {
+            return 0;
+        }
+        int row = location.row();
+        int col = location.col();
+        return femaleCells[speciesIndex].adjacentMask(row, col)
+            | maleCells[speciesIndex].adjacentMask(row, col);
+    }
+
+    /**
+     * Count the live animals of one species and sex within a rectangle
+     * of the field. Parts of the rectangle outside the field are ignored.
+     * @param speciesIndex The number of the species (see Species).
+     * @param female true to count females, false to count males.
+     * @param top The first row of the rectangle.
+     * @param left The first column of the rectangle.
+     * @param bottom The last row of the rectangle.
+     * @param right The last column of the rectangle.
+     * @return The number of matching animals in the rectangle.
+     */
+    public int countInWindow(int speciesIndex, boolean female,
+                             int top, int left, int bottom, int right)
+    {
+        if (speciesIndex >= femaleCells.length || femaleCells[speciesIndex] == null) {
+            return 0;
+        }
+        return sexCells(speciesIndex, female).count(top, left, bottom, right);
+    }
+
+    /**
+     * Return the occupancy grid for one species and sex.
+     * @param speciesIndex The number of the species.
+     * @param female true for females, false for males.
+     * @return The grid of locations holding such an animal.
+     */
+    private BitGrid sexCells(int speciesIndex, boolean female)
+    {
+        return female ? femaleCells[speciesIndex] : maleCells[speciesIndex];
+    }
+
+    /**
+     * Return which of the cells adjacent to a location lie within the field.
+     * @param row The row of the location.
+     * @param col The column of the location.
+     * @return A mask in which bit k is set if cell k of
+     *         Neighbourhood.ADJACENT lies within the field.
+     */
+    private int insideMask(int row, int col)
+    {
+        int inside = 0xFF;
+        if (row == 0) {
+            inside &= 0b11111000;
+        }
+        if (row == depth - 1) {
+            inside &= 0b00011111;
+        }
+        if (col == 0) {
+            inside &= 0b11010110;
+        }
+        if (col == width - 1) {
+            inside &= 0b01101011;
+        }
+        return inside;
+    }
+
     /** 
      * Return a shuffled list of locations adjacent to the given one.
      * The list will not include the location itself.
@@ -147,29 +661,7 @@ public class Field
      */
     public List<Location> getAdjacentLocations(Location location)
     {
-        // The list of locations to be returned.
-        List<Location> locations = new ArrayList<>();
-        if(location != null) {
-            int row = location.row();
-            int col = location.col();
-            for(int roffset = -1; roffset <= 1; roffset++) {
-                int nextRow = row + roffset;
-                if(nextRow >= 0 && nextRow < depth) {
-                    for(int coffset = -1; coffset <= 1; coffset++) {
-                        int nextCol = col + coffset;
-                        // Exclude invalid locations and the original location.
-                        if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-                            locations.add(new Location(nextRow, nextCol));
-                        }
-                    }
-                }
-            }
-
-            // Shuffle the list. Several other methods rely on the list
-            // being in a random order.
-            Collections.shuffle(locations, rand);
-        }
-        return locations;
+        return getLocationsAround(location, Neighbourhood.ADJACENT);
     }
 
     /** 
@@ -181,155 +673,256 @@ public class Field
      * @return A list of locations adjacent to that given.
      */
     public List<Location> getNearbyLocations(Location location)
+    {
+        return getLocationsAround(location, Neighbourhood.NEARBY);
+    }
+
+    /**
+     * Return a shuffled list of the locations in a neighbourhood of the
+     * given one. Code on the step path should walk the neighbourhood
+     * directly instead, as this allocates a list and its locations.
+     * @param location The centre of the neighbourhood.
+     * @param neighbourhood The cells to include.
+     * @return A list of the locations within the grid.
+     */
+    private List<Location> getLocationsAround(Location location, Neighbourhood neighbourhood)
     {
         // The list of locations to be returned.
-        List<Location> locations = new ArrayList<>();
+        List<Location> locations = new ArrayList<>(neighbourhood.size());
         if(location != null) {
             int row = location.row();
             int col = location.col();
-            for(int roffset = -2; roffset <= 2; roffset++) {
-                int nextRow = row + roffset;
-                if(nextRow >= 0 && nextRow < depth) {
-                    for(int coffset = -2; coffset <= 2; coffset++) {
-                        int nextCol = col + coffset;
-                        // Exclude invalid locations and the original location.
-                        if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-                            locations.add(new Location(nextRow, nextCol));
-                        }
-                    }
+            // Several other methods rely on the list being in a random order.
+            for(int k : neighbourhood.randomOrder(rand)) {
+                int nextRow = row + neighbourhood.rowOffset(k);
+                int nextCol = col + neighbourhood.colOffset(k);
+                if(contains(nextRow, nextCol)) {
+                    locations.add(new Location(nextRow, nextCol));
                 }
             }
-
-            // Shuffle the list. Several other methods rely on the list
-            // being in a random order.
-            Collections.shuffle(locations, rand);
         }
         return locations;
     }
 
+    /**
+     * Check whether a row and column lie within the field.
+     * @param row The row to check.
+     * @param col The column to check.
+     * @return true if the position is inside the field.
+     */
+    public boolean contains(int row, int col)
+    {
+        return row >= 0 && row < depth && col >= 0 && col < width;
+    }
+
     /**
      * Print out the number of animals and edible leaves in the field.
      * Plant cores are not edible so ignore those.
      */
     public void fieldStats()
     {
-        // A hashmap of classes of animals and integers representing the count.
-        HashMap<Class<?>, Integer> counts = new HashMap<>();
-        for(Pair<Animal, Plant> pair : field.values()) {
-            Animal anAnimal = pair.first();
+        System.out.println(getPopulation());
+    }
 
-            if (anAnimal != null && anAnimal.isAlive()) {
-                Class<?> animalClass = anAnimal.getClass();
-                // Puts the class and integer 1 into hashmap if
-                // not in the hashmap.
-                if (counts.get(animalClass) == null) {
-                    counts.put(animalClass, 1);
-                }
-                // Increments the value of the corresponding class
-                // for every animal.
-                else {
-                    int newCount = counts.get(animalClass) + 1;
-                    counts.put(animalClass, newCount);
-                }
+    /**
+     * Take a snapshot of the population counts of the field. This only
+     * copies the counts kept by the field, it does not scan the cells.
+     * @return The number of live animals of each species seen so far,
+     *         of infected animals and of edible leaves.
+     */
+    public Population getPopulation()
+    {
+        Map<Class<?>, Integer> counts = new LinkedHashMap<>();
+        for(int i = 0; i < animalCounters.length; i++) {
+            if (animalCounters[i] != null) {
+                counts.put(Species.classOf(i), animalCounters[i].getCount());
             }
         }
+        return new Population(Collections.unmodifiableMap(counts), infected, leaves);
+    }
+
+    /**
+     * Return the number of live animals of one species.
+     * @param animalClass The class of the species.
+     * @return The number of live animals of that class.
+     */
+    public int getCount(Class<?> animalClass)
+    {
+        return getCount(Species.indexOf(animalClass));
+    }
 
-        Set<Class<?>> animalClasses = counts.keySet();
-        String output = "";
-        for (Class<?> animalClass : animalClasses) {
-            output += animalClass.getSimpleName() + ": " + counts.get(animalClass) + " ";
+    /**
+     * Return the number of live animals of one species.
+     * @param speciesIndex The number of the species (see Species).
+     * @return The number of live animals of that species.
+     */
+    public int getCount(int speciesIndex)
+    {
+        if (speciesIndex < animalCounters.length && animalCounters[speciesIndex] != null) {
+            return animalCounters[speciesIndex].getCount();
         }
-        System.out.println(output + "Infected: " + infectedCount()
-            + " " + "Leaves: " + ediblePlantCount());
+        return 0;
+    }
+
+    /**
+     * @return The number of live prey in the field.
+     */
+    public int getPreyCount()
+    {
+        return preyCount;
     }
 
     /**
-     * Generate a count of all the infected animals in the field.
+     * @return The number of live predators in the field.
+     */
+    public int getPredatorCount()
+    {
+        return predatorCount;
+    }
+
+    /**
+     * Return the number of infected animals in the field.
      * @return The number of infected animals.
      */
     public int infectedCount() {
-        int numInfected = 0;
-        for(Pair<Animal, Plant> pair : field.values()) {
+        return infected;
+    }
 
-            Animal anAnimal = pair.first();
+    /**
+     * Return the number of leaves (edible) in the field.
+     * @return The number of leaves
+     */
+    public int ediblePlantCount() {
+        return leaves;
+    }
 
-            // Increments count by one for every infected animal.
-            if (anAnimal != null && anAnimal.isInfected()) {
-                numInfected++;
+    /**
+     * Empty the field.
+     */
+    public void clear()
+    {
+        Arrays.fill(animalCells, null);
+        Arrays.fill(plantCells, null);
+        animals.clear();
+        plants.clear();
+        for(Counter counter : animalCounters) {
+            if (counter != null) {
+                counter.reset();
+            }
+        }
+        for(int species = 0; species < femaleCells.length; species++) {
+            if (femaleCells[species] != null) {
+                femaleCells[species].clearAll();
+                maleCells[species].clearAll();
             }
         }
-        return numInfected;
+        occupiedCells.clearAll();
+        leafCells.clearAll();
+        if (leafSpecies != null) {
+            Arrays.fill(leafSpecies, (byte) 0);
+        }
+        eatenLeaves.clearAll();
+        infectedCells.clearAll();
+        killedInfectedCells.clearAll();
+        preyCount = 0;
+        predatorCount = 0;
+        infected = 0;
+        leaves = 0;
+        clearCount++;
     }
 
     /**
-     * Generate a count of all the leaves (edible) in the field.
-     * @return The number of leaves
+     * Return the number of times the field has been cleared, which
+     * tells whether it has been refilled since it was last seen.
+     * @return The number of times the field has been cleared.
      */
-    public int ediblePlantCount() {
-        int numPlants = 0;
-        for(Pair<Animal, Plant> pair : field.values()) {
-
-            Plant plant = pair.second();
+    public int getClearCount()
+    {
+        return clearCount;
+    }
 
-            // Increments count by one for every leaf.
-            if (plant != null && plant.getClass() == LeafCell.class) {
-                numPlants++;
-            }
+    /**
+     * Make the plants of this field the same as those of another field
+     * of the same size, in one pass over the plant layer, instead of
+     * having every plant place itself. The other field's plant list is
+     * compacted first, so emptied slots are not carried along. Leaves
+     * kept in arrays are carried as they are, without touching a plant.
+     * @param source The field whose plants are carried over. It must
+     *               keep its leaves the same way as this field.
+     */
+    public void carryPlantsFrom(Field source)
+    {
+        source.plants.compact();
+        System.arraycopy(source.plantCells, 0, plantCells, 0, plantCells.length);
+        plants.copyFrom(source.plants);
+        leafCells.copyFrom(source.leafCells);
+        if (leafSpecies != null) {
+            System.arraycopy(source.leafSpecies, 0, leafSpecies, 0, leafSpecies.length);
+            System.arraycopy(source.leafOwners, 0, leafOwners, 0, leafOwners.length);
         }
-        return numPlants;
+        leaves = source.leaves;
     }
 
     /**
-     * Empty the field.
+     * Empty some rows of the field, leaving the others as they are.
+     * @param fromRow The first row to empty.
+     * @param toRow One past the last row to empty.
      */
-    public void clear()
+    public void clearRows(int fromRow, int toRow)
     {
-        field.clear();
+        for (int index = fromRow * width; index < toRow * width; index++) {
+            Animal anAnimal = animalCells[index];
+            if (anAnimal != null) {
+                if (anAnimal.isAlive()) {
+                    uncount(anAnimal, new Location(index / width, index % width));
+                }
+                else if (anAnimal.isInfected()) {
+                    killedInfectedCells.clear(index / width, index % width);
+                }
+                animalCells[index] = null;
+                animals.vacate(index);
+            }
+            if (plantCells[index] != null) {
+                removePlant(index);
+            }
+            if (leafSpecies != null && leafSpecies[index] != 0) {
+                removeLeaf(index);
+            }
+        }
     }
 
     /**
      * Return whether there is at least one prey and one predator.
      * There will always be plant cores in the field, only number of edible leaves changes.
+     * This reads the live counts, so it takes constant time.
      * @return true if there is at least one prey and one predator.
      */
     public boolean isViable()
     {
-        boolean preyFound = false;
-        boolean predatorFound = false;
-        Iterator<Animal> it = animals.iterator();
-        while(it.hasNext() && ! (preyFound && predatorFound)) {
-            Animal anAnimal = it.next();
-            if(anAnimal instanceof Prey prey) {
-                if(prey.isAlive()) {
-                    // if a prey is found, set preyFound to true.
-                    preyFound = true;
-                }
-            }
-            else if(anAnimal instanceof Predator predator) {
-                if(predator.isAlive()) {
-                    // if a predator is found, set predatorFound to true.
-                    predatorFound = true;
-                }
-            }
-        }
-        return preyFound && predatorFound;
+        return ViabilityRule.PREY_AND_PREDATOR.isViable(this);
     }
 
     /**
-     * Get the list of animals.
+     * Get the list of live animals, in the order they were placed.
+     * The list must not be held on to while animals are placed in
+     * this field.
      * @return The current list of animals.
      */
     public List<Animal> getAnimals()
     {
+        animals.compact();
         return animals;
     }
 
     /**
-     * Get the list of plants.
+     * Get the list of live plants, in the order they were placed.
+     * The list must not be held on to while plants are placed in
+     * this field.
      * @return The current list of plants.
      */
     public List<Plant> getPlants()
     {
+        plants.compact();
         return plants;
     }
 
@@ -350,4 +943,119 @@ public class Field
     {
         return width;
     }
+
+    /**
+     * Add a live animal to the occupancy grids and, unless threads
+     * are updating the field concurrently, the population counts.
+     * @param anAnimal The animal being placed.
+     * @param location Where the animal is placed.
+     */
+    private void count(Animal anAnimal, Location location)
+    {
+        int row = location.row();
+        int col = location.col();
+        ensureSpecies(anAnimal.getSpeciesIndex());
+        occupiedCells.set(row, col);
+        sexCells(anAnimal.getSpeciesIndex(), anAnimal.isFemale()).set(row, col);
+        if (anAnimal.isInfected()) {
+            infectedCells.set(row, col);
+        }
+        if (!concurrent) {
+            addToCounts(anAnimal);
+        }
+    }
+
+    /**
+     * Remove an animal that was counted from the occupancy grids and,
+     * unless threads are updating the field concurrently, the
+     * population counts.
+     * @param anAnimal The animal being replaced or killed.
+     * @param location Where the animal was placed.
+     */
+    private void uncount(Animal anAnimal, Location location)
+    {
+        int row = location.row();
+        int col = location.col();
+        occupiedCells.clear(row, col);
+        sexCells(anAnimal.getSpeciesIndex(), anAnimal.isFemale()).clear(row, col);
+        if (anAnimal.isInfected()) {
+            infectedCells.clear(row, col);
+        }
+        if (!concurrent) {
+            animalCounters[anAnimal.getSpeciesIndex()].decrement();
+            if (anAnimal instanceof Prey) {
+                preyCount--;
+            }
+            else if (anAnimal instanceof Predator) {
+                predatorCount--;
+            }
+            if (anAnimal.isInfected()) {
+                infected--;
+            }
+        }
+    }
+
+    /**
+     * Add a live animal to the population counts.
+     * @param anAnimal The animal to count.
+     */
+    private void addToCounts(Animal anAnimal)
+    {
+        animalCounters[anAnimal.getSpeciesIndex()].increment();
+        if (anAnimal instanceof Prey) {
+            preyCount++;
+        }
+        else if (anAnimal instanceof Predator) {
+            predatorCount++;
+        }
+        if (anAnimal.isInfected()) {
+            infected++;
+        }
+    }
+
+    /**
+     * Make sure the counter and occupancy grids of a species exist.
+     * @param species The number of the species.
+     */
+    private void ensureSpecies(int species)
+    {
+        if (species >= animalCounters.length) {
+            animalCounters = Arrays.copyOf(animalCounters, species + 1);
+            femaleCells = Arrays.copyOf(femaleCells, species + 1);
+            maleCells = Arrays.copyOf(maleCells, species + 1);
+        }
+        if (animalCounters[species] == null) {
+            animalCounters[species] = new Counter(Species.classOf(species).getSimpleName());
+            femaleCells[species] = new BitGrid(depth, width);
+            maleCells[species] = new BitGrid(depth, width);
+        }
+    }
+
+    /**
+     * @return Every occupancy grid that placing animals may change.
+     */
+    private List<BitGrid> allGrids()
+    {
+        List<BitGrid> grids = new ArrayList<>();
+        grids.add(occupiedCells);
+        grids.add(infectedCells);
+        grids.add(killedInfectedCells);
+        for (int species = 0; species < femaleCells.length; species++) {
+            if (femaleCells[species] != null) {
+                grids.add(femaleCells[species]);
+                grids.add(maleCells[species]);
+            }
+        }
+        return grids;
+    }
+
+    /**
+     * Return the index of a location in the cell arrays.
+     * @param location The location within the field.
+     * @return The row-major index of the location.
+     */
+    private int indexOf(Location location)
+    {
+        return location.row() * width + location.col();
+    }
 }
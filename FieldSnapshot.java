@@ -0,0 +1,177 @@
+/**
+ * A picture of a field at the end of a step, for drawing on another
+ * thread while the simulation goes on. A snapshot can be taken again
+ * with retake, reusing its codes, once no other thread uses it, so
+ * that a view need not allocate one every step. Each location is
+ * kept as a single code: 0 for an empty location, otherwise the
+ * species number of what is drawn there (the animal, if there is a
+ * live one, or else the plant) shifted left by one, plus one if the
+ * animal is infected. Leaves take the species number of their plant,
+ * so they are drawn in its colour.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class FieldSnapshot
+{
+    // The code of an empty location.
+    public static final int EMPTY = 0;
+
+    private int step;
+    private Time time;
+    private Weather weather;
+    private int depth, width;
+    // The code of each location, indexed by row * width + col.
+    private int[] codes;
+    private Population population;
+
+    /**
+     * Take a snapshot of a field.
+     * @param step The step the field was reached at.
+     * @param time The day/night cycle after the step.
+     * @param weather The weather after the step.
+     * @param field The field.
+     */
+    public FieldSnapshot(int step, Time time, Weather weather, Field field)
+    {
+        retake(step, time, weather, field);
+    }
+
+    /**
+     * Take the snapshot again, of a later step or another field,
+     * reusing the codes if the field is the same size.
+     * @param step The step the field was reached at.
+     * @param time The day/night cycle after the step.
+     * @param weather The weather after the step.
+     * @param field The field.
+     */
+    public void retake(int step, Time time, Weather weather, Field field)
+    {
+        this.step = step;
+        this.time = time;
+        this.weather = weather;
+        depth = field.getDepth();
+        width = field.getWidth();
+        if (codes == null || codes.length != depth * width) {
+            codes = new int[depth * width];
+        }
+        for (int row = 0; row < depth; row++) {
+            for (int col = 0; col < width; col++) {
+                codes[row * width + col] = codeOf(field.getAnimalAt(row, col),
+                                                  field.getLeafSpecies(row, col),
+                                                  field.getPlantAt(row, col));
+            }
+        }
+        population = field.getPopulation();
+    }
+
+    /**
+     * Return the code of a location.
+     * @param animal The animal at the location, or null.
+     * @param leafSpecies The species number of the plant owning the
+     *                    leaf at the location, or -1 if there is none.
+     * @param plant The plant at the location, or null.
+     * @return The code of the location.
+     */
+    private static int codeOf(Animal animal, int leafSpecies, Plant plant)
+    {
+        if (animal != null && animal.isAlive()) {
+            return codeOf(animal.getSpeciesIndex(), animal.isInfected());
+        }
+        else if (leafSpecies >= 0) {
+            return codeOf(leafSpecies, false);
+        }
+        else if (plant != null) {
+            return codeOf(plant.getSpeciesIndex(), false);
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Return the code of a location holding a given species.
+     * @param speciesIndex The species number.
+     * @param infected Whether the organism is an infected animal.
+     * @return The code.
+     */
+    public static int codeOf(int speciesIndex, boolean infected)
+    {
+        return (speciesIndex + 1) << 1 | (infected ? 1 : 0);
+    }
+
+    /**
+     * @param code The code of a location, other than EMPTY.
+     * @return The species number of what is drawn there.
+     */
+    public static int speciesOf(int code)
+    {
+        return (code >> 1) - 1;
+    }
+
+    /**
+     * @param code The code of a location.
+     * @return Whether an infected animal is drawn there.
+     */
+    public static boolean isInfected(int code)
+    {
+        return (code & 1) != 0;
+    }
+
+    /**
+     * Return the code of a location.
+     * @param row The row of the location.
+     * @param col The column of the location.
+     * @return The code of the location.
+     */
+    public int getCode(int row, int col)
+    {
+        return codes[row * width + col];
+    }
+
+    /**
+     * @return The step the field was reached at.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return The day/night cycle after the step.
+     */
+    public Time getTime()
+    {
+        return time;
+    }
+
+    /**
+     * @return The weather after the step.
+     */
+    public Weather getWeather()
+    {
+        return weather;
+    }
+
+    /**
+     * @return The depth of the field.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return The width of the field.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * @return The population of the field.
+     */
+    public Population getPopulation()
+    {
+        return population;
+    }
+}
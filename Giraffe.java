@@ -10,27 +10,23 @@ import java.util.List;
  */
 public class Giraffe extends Prey
 {
-    // Characteristics shared by all giraffes (class variables).
-    // The age at which a giraffe can start to breed.
-    private static final int BREEDING_AGE = 15;
-    // The age to which a giraffe can live.
-    private static final int MAX_AGE = 175;
-    // The likelihood of a giraffe breeding.
-    private static final double BREEDING_PROBABILITY = 0.4;
-    // The maximum number of births.
-    private static final int MAX_LITTER_SIZE = 2;
-
     /**
      * Create a new giraffe. A giraffe may be created with age
      * zero (a new born) or with a random age.
      * @param randomAge If true, the giraffe will have a random age.
      * @param location The location within the field.
+     * @param id The identity of the giraffe.
+     * @param parameters The parameters of the run, which the giraffe's
+     *                   offspring inherit.
+     * @param randomEngine The generator behind the run's random streams,
+     *                     which the giraffe's offspring inherit.
      */
-    public Giraffe(boolean randomAge, Location location)
+    public Giraffe(boolean randomAge, Location location, long id, Parameters parameters,
+                   RandomEngine randomEngine)
     {
-        super(location);
+        super(location, id, parameters, randomEngine);
         if(randomAge) {
-            setAge(randInt(MAX_AGE));
+            setAge(randInt(getParameters().getInt(Parameter.GIRAFFE_MAX_AGE)));
         }
         else {
             setAge(0);
@@ -47,13 +43,12 @@ public class Giraffe extends Prey
     }
 
     /**
-     * Check if the giraffe is too old to live.
+     * Return the age to which the giraffe can live.
+     * @return The maximum age.
      */
-    protected void checkIfTooOld()
+    protected int maxAge()
     {
-        if(getAge() > MAX_AGE) {
-            setDead();
-        }
+        return getParameters().getInt(Parameter.GIRAFFE_MAX_AGE);
     }
 
     /**
@@ -63,16 +58,18 @@ public class Giraffe extends Prey
      */
     protected boolean breedSuccess()
     {
-        return getAge() >= BREEDING_AGE && randDouble() <= BREEDING_PROBABILITY;
+        return getAge() >= getParameters().getInt(Parameter.GIRAFFE_BREEDING_AGE)
+               && randDouble() <= getParameters().get(Parameter.GIRAFFE_BREEDING_PROBABILITY);
     }
 
     /**
      * Create a new giraffe as offspring.
      * @param loc The location off the new offspring.
+     * @param id The identity of the offspring.
      * @return The offspring.
      */
-    protected Animal offspring(Location loc) {
-        Giraffe young = new Giraffe(false,loc);
+    protected Animal offspring(Location loc, long id) {
+        Giraffe young = new Giraffe(false, loc, id, getParameters(), getRandomEngine());
         return young;
     }
 
@@ -81,7 +78,7 @@ public class Giraffe extends Prey
      * @return Number of offspring.
      */
     protected int birthNumber() {
-        return randInt(MAX_LITTER_SIZE) + 1;
+        return randInt(getParameters().getInt(Parameter.GIRAFFE_MAX_LITTER_SIZE)) + 1;
     }
 
     /**
@@ -105,13 +102,13 @@ public class Giraffe extends Prey
     /**
      * Checks if a prey can eat the plant
      * depending on the type of prey.
-     * @param leafCell The leaf to check.
+     * @param plantSpecies The species number of the plant owning the leaf.
      * @return true if the prey can eat the leaf, false if not.
      */
-    protected boolean canEat(LeafCell leafCell) { 
+    protected boolean canEat(int plantSpecies) { 
         // If the core plant which is being eaten belongs
         // to a tree, the prey can eat the tree.
-        if (leafCell.parentClass() == Tree.class) {
+        if (plantSpecies == Species.indexOf(Tree.class)) {
             return true;
         } else {
             return false;
@@ -0,0 +1,16 @@
+/**
+ * Enumeration class InfectionModel - the ways in which infection can
+ * spread between neighbouring animals during a step.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public enum InfectionModel
+{
+    // Each animal checks its neighbours in the next field state as it
+    // acts, so the result depends on the order in which animals act.
+    PER_ANIMAL,
+    // Before the animals act, every live animal next to an infected
+    // animal in the current field is infected in one pass over the grid.
+    GRID;
+}
@@ -0,0 +1,360 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Run a step in two phases, so that the outcome does not depend on
+ * the order in which animals are visited.
+ *
+ * In the decide phase every animal looks at the current field and
+ * records what it means to do in a buffer of intents: where to move,
+ * which prey or leaf to eat and where to place newborns. Animals
+ * change nothing but themselves while deciding, so they decide in
+ * parallel on a fork-join pool.
+ *
+ * In the resolve phase the intents are settled on one thread:
+ *
+ * 1. Food. Each prey animal is killed by, and each leaf eaten by, at
+ *    most one animal. A predator that kills moves into its prey's cell.
+ *    Hunts are settled before grazing, so a prey killed in this step
+ *    eats nothing.
+ * 2. Cells. Moves and newborns may only claim cells that held no
+ *    animal at the start of the step; each cell goes to one claimant.
+ *    An animal that loses its cell stays where it is, and a newborn
+ *    that loses its cell is not born. A predator with no free cell
+ *    that loses its hunt dies of overcrowding.
+ *
+ * Tie-break rule: when several animals want the same food or cell,
+ * the one with the highest priority wins, and between equal
+ * priorities the one that stood first in row-major order at the start
+ * of the step. An animal's priority is drawn from its own random
+ * stream, and newborns compete with their parent's priority.
+ *
+ * Finally the surviving animals and the newborns are placed in the
+ * next field. As in act, an animal that dies of overcrowding still
+ * places its newborns first. Because every decision depends only on the
+ * current field and every conflict is settled by the rule above, a
+ * run gives the same results on any number of threads and whatever
+ * the order of the field's lists.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class IntentStepEngine implements StepEngine
+{
+    // The number of animals below which a decide task is not split.
+    private static final int DECIDE_BATCH = 256;
+    // The claimant number of an animal that claims no cell.
+    private static final int NO_CLAIM = -1;
+    // Each animal's claims are numbered slot * CLAIMS_PER_ANIMAL + c,
+    // where c is 0 for the animal itself and k + 1 for a newborn in
+    // adjacent cell k.
+    private static final int CLAIMS_PER_ANIMAL = 9;
+
+    // The pool that runs the decide phase.
+    private final ForkJoinPool pool;
+    // The intents of the current step.
+    private final Intents intents;
+
+    // For each claimed cell (and, in the food round, each layer of a
+    // cell), the claimant winning so far and its priority and origin.
+    private int[] winner;
+    private long[] winnerPriority;
+    private int[] winnerOrigin;
+
+    // The cell of each animal at the start of the step, and where it
+    // ends up, as row-major indexes.
+    private int[] startCells;
+    private int[] endCells;
+
+    /**
+     * Create an engine whose decide phase runs on the common fork-join pool.
+     */
+    public IntentStepEngine()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create an engine whose decide phase runs on the given pool.
+     * @param pool The pool that runs the decide phase.
+     */
+    public IntentStepEngine(ForkJoinPool pool)
+    {
+        this.pool = pool;
+        intents = new Intents();
+        winner = new int[0];
+        winnerPriority = new long[0];
+        winnerOrigin = new int[0];
+        startCells = new int[0];
+        endCells = new int[0];
+    }
+
+    /**
+     * Let every animal decide, then settle their intents.
+     * @param currentField The current state of the field.
+     * @param nextFieldState The empty field in which the next state is built.
+     * @param context The step number, time, weather and infection model.
+     */
+    @Override
+    public void step(Field currentField, Field nextFieldState, StepContext context)
+    {
+        List<Animal> animals = currentField.getAnimals();
+        int count = animals.size();
+        intents.reset(count);
+        prepare(currentField, count);
+        int width = currentField.getWidth();
+        for (int slot = 0; slot < count; slot++) {
+            Location location = animals.get(slot).getLocation();
+            startCells[slot] = location.row() * width + location.col();
+            endCells[slot] = startCells[slot];
+        }
+
+        if (count > 0) {
+            pool.invoke(new DecideTask(animals, currentField, context, 0, count));
+        }
+        resolveFood(currentField, animals);
+        resolveCells(currentField, animals);
+        place(currentField, nextFieldState, animals);
+    }
+
+    /**
+     * Settle who eats what. A winning predator kills its prey and
+     * moves into its cell; a winning prey eats its leaf where it stands.
+     * @param field The current state of the field.
+     * @param animals The animals of the step, by slot.
+     */
+    private void resolveFood(Field field, List<Animal> animals)
+    {
+        // Prey and leaves in the same cell are different food, so each
+        // cell has one claim for its animal and one for its plant.
+        clearClaims(2 * field.getDepth() * field.getWidth());
+        for (int slot = 0; slot < intents.size(); slot++) {
+            int foodCell = intents.food(slot);
+            if (foodCell != Intents.NO_FOOD && animals.get(slot).isAlive()) {
+                int layer = animals.get(slot) instanceof Predator ? 0 : 1;
+                claim(2 * adjacentCell(field, slot, foodCell) + layer,
+                      slot * CLAIMS_PER_ANIMAL, slot);
+            }
+        }
+        // Hunts first, so that prey killed now do not go on to eat.
+        for (boolean hunts : new boolean[] { true, false }) {
+            for (int slot = 0; slot < intents.size(); slot++) {
+                Animal anAnimal = animals.get(slot);
+                int foodCell = intents.food(slot);
+                if (foodCell == Intents.NO_FOOD || (anAnimal instanceof Predator) != hunts
+                    || !anAnimal.isAlive()) {
+                    continue;
+                }
+                int cell = adjacentCell(field, slot, foodCell);
+                if (winner[2 * cell + (hunts ? 0 : 1)] == slot * CLAIMS_PER_ANIMAL
+                    && anAnimal.eat(field, locationOf(field, cell)) && hunts) {
+                    endCells[slot] = cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * Settle who moves to, or is born in, each cell that held no
+     * animal at the start of the step.
+     * @param field The current state of the field.
+     * @param animals The animals of the step, by slot.
+     */
+    private void resolveCells(Field field, List<Animal> animals)
+    {
+        clearClaims(field.getDepth() * field.getWidth());
+        for (int slot = 0; slot < intents.size(); slot++) {
+            if (!animals.get(slot).isAlive()) {
+                continue;
+            }
+            int target = intents.target(slot);
+            if (target >= 0 && endCells[slot] == startCells[slot]) {
+                claim(adjacentCell(field, slot, target), slot * CLAIMS_PER_ANIMAL, slot);
+            }
+            int births = intents.births(slot);
+            for (int k = 0; births != 0; k++, births >>>= 1) {
+                if ((births & 1) != 0) {
+                    claim(adjacentCell(field, slot, k), slot * CLAIMS_PER_ANIMAL + k + 1, slot);
+                }
+            }
+        }
+        for (int slot = 0; slot < intents.size(); slot++) {
+            int target = intents.target(slot);
+            if (target >= 0 && endCells[slot] == startCells[slot]) {
+                int cell = adjacentCell(field, slot, target);
+                if (winner[cell] == slot * CLAIMS_PER_ANIMAL) {
+                    endCells[slot] = cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * Place the surviving animals and the newborns that won their
+     * cells in the next field, and kill the animals that die of
+     * overcrowding once their newborns are placed. No two of them
+     * share a cell.
+     * @param field The current state of the field.
+     * @param nextFieldState The field in which the next state is built.
+     * @param animals The animals of the step, by slot.
+     */
+    private void place(Field field, Field nextFieldState, List<Animal> animals)
+    {
+        for (int slot = 0; slot < intents.size(); slot++) {
+            Animal anAnimal = animals.get(slot);
+            if (!anAnimal.isAlive()) {
+                continue;
+            }
+            boolean overcrowded = intents.target(slot) == Intents.DIE
+                                  && endCells[slot] == startCells[slot];
+            if (!overcrowded) {
+                Location location = locationOf(field, endCells[slot]);
+                anAnimal.setLocation(location);
+                nextFieldState.placeAnimal(anAnimal, location);
+            }
+
+            int births = intents.births(slot);
+            for (int k = 0; births != 0; k++, births >>>= 1) {
+                int cell = startCells[slot] + adjacentOffset(field, k);
+                if ((births & 1) != 0 && winner[cell] == slot * CLAIMS_PER_ANIMAL + k + 1) {
+                    Location birthplace = locationOf(field, cell);
+                    nextFieldState.placeAnimal(
+                        anAnimal.newborn(birthplace, RandomStream.key(intents.birthKey(slot), k)),
+                        birthplace);
+                }
+            }
+            if (overcrowded) {
+                anAnimal.setDead();
+            }
+        }
+    }
+
+    /**
+     * Put in a claim, keeping it if it beats the best claim so far
+     * under the tie-break rule.
+     * @param key The cell (or cell and layer) claimed.
+     * @param claimant The number of the claim.
+     * @param slot The slot of the animal making the claim.
+     */
+    private void claim(int key, int claimant, int slot)
+    {
+        long priority = intents.priority(slot);
+        int origin = startCells[slot];
+        if (winner[key] == NO_CLAIM || priority > winnerPriority[key]
+            || (priority == winnerPriority[key] && origin < winnerOrigin[key])) {
+            winner[key] = claimant;
+            winnerPriority[key] = priority;
+            winnerOrigin[key] = origin;
+        }
+    }
+
+    /**
+     * Forget every claim.
+     * @param keys The number of cells (or cells and layers) in use.
+     */
+    private void clearClaims(int keys)
+    {
+        Arrays.fill(winner, 0, keys, NO_CLAIM);
+    }
+
+    /**
+     * Make sure the arrays are large enough for a field and a number
+     * of animals.
+     * @param field The field.
+     * @param animalCount The number of animals.
+     */
+    private void prepare(Field field, int animalCount)
+    {
+        int keys = 2 * field.getDepth() * field.getWidth();
+        if (winner.length < keys) {
+            winner = new int[keys];
+            winnerPriority = new long[keys];
+            winnerOrigin = new int[keys];
+        }
+        if (startCells.length < animalCount) {
+            int capacity = Math.max(animalCount, startCells.length * 2);
+            startCells = new int[capacity];
+            endCells = new int[capacity];
+        }
+    }
+
+    /**
+     * @param field The field.
+     * @param slot An animal's slot.
+     * @param k The number of a cell in Neighbourhood.ADJACENT.
+     * @return The row-major index of that cell next to the animal's
+     *         cell at the start of the step.
+     */
+    private int adjacentCell(Field field, int slot, int k)
+    {
+        return startCells[slot] + adjacentOffset(field, k);
+    }
+
+    /**
+     * @param field The field.
+     * @param k The number of a cell in Neighbourhood.ADJACENT.
+     * @return The difference between the row-major index of that
+     *         cell and that of the centre.
+     */
+    private static int adjacentOffset(Field field, int k)
+    {
+        return Neighbourhood.ADJACENT.rowOffset(k) * field.getWidth()
+               + Neighbourhood.ADJACENT.colOffset(k);
+    }
+
+    /**
+     * @param field The field.
+     * @param cell A row-major index.
+     * @return The location with that index.
+     */
+    private static Location locationOf(Field field, int cell)
+    {
+        return new Location(cell / field.getWidth(), cell % field.getWidth());
+    }
+
+    /**
+     * Let a range of animals decide, splitting the range in half until
+     * it is small.
+     */
+    @SuppressWarnings("serial")
+    private class DecideTask extends RecursiveAction
+    {
+        private final List<Animal> animals;
+        private final Field field;
+        private final StepContext context;
+        private final int from, to;
+
+        /**
+         * @param animals The animals of the step, by slot.
+         * @param field The current state of the field.
+         * @param context The conditions of the step.
+         * @param from The first slot to decide.
+         * @param to One past the last slot to decide.
+         */
+        DecideTask(List<Animal> animals, Field field, StepContext context, int from, int to)
+        {
+            this.animals = animals;
+            this.field = field;
+            this.context = context;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= DECIDE_BATCH) {
+                for (int slot = from; slot < to; slot++) {
+                    animals.get(slot).decide(field, context, intents, slot);
+                }
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new DecideTask(animals, field, context, from, middle),
+                          new DecideTask(animals, field, context, middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.Arrays;
+
+/**
+ * What every animal means to do in one step of the intent step engine,
+ * kept in primitive arrays indexed by the animal's slot in the field's
+ * list of animals. Animals fill in their own slot while deciding, and
+ * the engine reads the whole buffer when it settles conflicts.
+ *
+ * Cells are given by their number in Neighbourhood.ADJACENT, relative
+ * to where the animal stood at the start of the step.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class Intents
+{
+    // The animal stays where it is.
+    public static final int STAY = -1;
+    // The animal dies of overcrowding, unless it wins a hunt and
+    // moves into its prey's cell.
+    public static final int DIE = -2;
+    // The animal does not try to eat.
+    public static final int NO_FOOD = -1;
+
+    // The number of slots in use.
+    private int size;
+    // The adjacent cell each animal moves to, or STAY or DIE.
+    private int[] targets;
+    // The adjacent cell whose food each animal tries to eat, or NO_FOOD.
+    private int[] food;
+    // The adjacent cells each animal places newborns in, as a mask.
+    private int[] births;
+    // The key from which the ids of each animal's newborns are made.
+    private long[] birthKeys;
+    // Each animal's priority when it competes for a cell or for food.
+    private long[] priorities;
+
+    /**
+     * Create an empty buffer.
+     */
+    public Intents()
+    {
+        size = 0;
+        targets = new int[0];
+        food = new int[0];
+        births = new int[0];
+        birthKeys = new long[0];
+        priorities = new long[0];
+    }
+
+    /**
+     * Make room for a step's animals. Until an animal plans, its slot
+     * says that it dies, which is the outcome for animals that die of
+     * age, hunger or infection before planning anything.
+     * @param animalCount The number of animals.
+     */
+    public void reset(int animalCount)
+    {
+        if (animalCount > targets.length) {
+            int capacity = Math.max(animalCount, targets.length * 2);
+            targets = new int[capacity];
+            food = new int[capacity];
+            births = new int[capacity];
+            birthKeys = new long[capacity];
+            priorities = new long[capacity];
+        }
+        size = animalCount;
+        Arrays.fill(targets, 0, size, DIE);
+        Arrays.fill(food, 0, size, NO_FOOD);
+        Arrays.fill(births, 0, size, 0);
+    }
+
+    /**
+     * Record what an animal means to do.
+     * @param slot The animal's slot.
+     * @param priority The animal's priority; the higher wins.
+     * @param target The adjacent cell to move to, or STAY or DIE.
+     * @param foodCell The adjacent cell whose food to eat, or NO_FOOD.
+     * @param birthCells The adjacent cells to place newborns in, as a mask.
+     * @param birthKey The key from which the newborns' ids are made.
+     */
+    public void plan(int slot, long priority, int target, int foodCell,
+                     int birthCells, long birthKey)
+    {
+        priorities[slot] = priority;
+        targets[slot] = target;
+        food[slot] = foodCell;
+        births[slot] = birthCells;
+        birthKeys[slot] = birthKey;
+    }
+
+    /**
+     * @return The number of slots in use.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @param slot An animal's slot.
+     * @return The adjacent cell the animal moves to, or STAY or DIE.
+     */
+    public int target(int slot)
+    {
+        return targets[slot];
+    }
+
+    /**
+     * @param slot An animal's slot.
+     * @return The adjacent cell whose food the animal tries to eat, or NO_FOOD.
+     */
+    public int food(int slot)
+    {
+        return food[slot];
+    }
+
+    /**
+     * @param slot An animal's slot.
+     * @return The adjacent cells the animal places newborns in, as a mask.
+     */
+    public int births(int slot)
+    {
+        return births[slot];
+    }
+
+    /**
+     * @param slot An animal's slot.
+     * @return The key from which the ids of the animal's newborns are made.
+     */
+    public long birthKey(int slot)
+    {
+        return birthKeys[slot];
+    }
+
+    /**
+     * @param slot An animal's slot.
+     * @return The animal's priority in conflicts.
+     */
+    public long priority(int slot)
+    {
+        return priorities[slot];
+    }
+}
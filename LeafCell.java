@@ -25,20 +25,6 @@ public class LeafCell extends Plant
         this.parent = corePlant;
     }
 
-    /**
-     * This is what the leaf cells do most of the time. It remains stationary
-     * until eaten from a prey.
-     * @param currentField The field currently occupied.
-     * @param nextFieldState The updated field.
-     * @param time The current day/night cycle.
-     */
-    public void act(Field currentField, Field nextFieldState, Time time)
-    {
-        if (isAlive()) {
-            nextFieldState.placePlant(this, getLocation());
-        }
-    }
-
     /**
      * Removes a leaf cell plant from the the field and
      * the list of leaf cells within the core plant.
@@ -49,6 +35,15 @@ public class LeafCell extends Plant
         parent.removeLeafCell(this);
     }
 
+    /**
+     * Returns the core plant which the leaf cell extends from.
+     * @return the core plant which the leaf cell extends from.
+     */
+    public CorePlant getParent()
+    {
+        return parent;
+    }
+
     /**
      * Returns the class of the parent plant.
      * @return the class of the parent plant.
@@ -57,4 +52,13 @@ public class LeafCell extends Plant
     {
         return parent.getClass();
     }
+
+    /**
+     * Returns the species number of the parent plant.
+     * @return the species number of the parent plant.
+     */
+    public int parentSpeciesIndex()
+    {
+        return parent.getSpeciesIndex();
+    }
 }
@@ -10,33 +10,24 @@ import java.util.List;
  */
 public class Lion extends Predator
 {
-    // Characteristics shared by all lions (class variables).
-    // The age at which a lion can start to breed.
-    private static final int BREEDING_AGE = 15;
-    // The age to which a lion can live.
-    private static final int MAX_AGE = 180;
-    // The likelihood of a lion breeding.
-    private static final double BREEDING_PROBABILITY = 0.4;
-    // The maximum number of births.
-    private static final int MAX_LITTER_SIZE = 3;
-    // Lions are primarily nocturnal, with low hunting during day.
-    // The likelihood of a lion hunting during the night.
-    private static final double NIGHT_HUNT_PROBABILITY = 0.9;
-    // The likelihood of a lion hunting during the night.
-    private static final double DAY_HUNT_PROBABILITY = 0.25;
-
     /**
      * Create a lion. A lion can be created as a new born (age zero
      * and not hungry) or with a random age and food level.
      * 
      * @param randomAge If true, the lion will have random age and hunger level.
      * @param location The location within the field.
+     * @param id The identity of the lion.
+     * @param parameters The parameters of the run, which the lion's
+     *                   offspring inherit.
+     * @param randomEngine The generator behind the run's random streams,
+     *                     which the lion's offspring inherit.
      */
-    public Lion(boolean randomAge, Location location)
+    public Lion(boolean randomAge, Location location, long id, Parameters parameters,
+                RandomEngine randomEngine)
     {
-        super(location, Giraffe.class);
+        super(location, id, parameters, randomEngine, Giraffe.class);
         if(randomAge) {
-            setAge(randInt(MAX_AGE));
+            setAge(randInt(getParameters().getInt(Parameter.LION_MAX_AGE)));
         }
         else {
             setAge(0);
@@ -68,13 +59,12 @@ public class Lion extends Predator
     }
 
     /**
-     * Check if the lion is too old to live.
+     * Return the age to which the lion can live.
+     * @return The maximum age.
      */
-    protected void checkIfTooOld()
+    protected int maxAge()
     {
-        if(getAge() > MAX_AGE) {
-            setDead();
-        }
+        return getParameters().getInt(Parameter.LION_MAX_AGE);
     }
 
     /**
@@ -84,16 +74,18 @@ public class Lion extends Predator
      */
     protected boolean breedSuccess()
     {
-        return getAge() >= BREEDING_AGE && randDouble() <= BREEDING_PROBABILITY;
+        return getAge() >= getParameters().getInt(Parameter.LION_BREEDING_AGE)
+               && randDouble() <= getParameters().get(Parameter.LION_BREEDING_PROBABILITY);
     }
 
     /**
      * Create a new lion as offspring.
      * @param loc The location off the new offspring.
+     * @param id The identity of the offspring.
      * @return The offspring.
      */
-    protected Animal offspring(Location loc) {
-        Lion young = new Lion(false,loc);
+    protected Animal offspring(Location loc, long id) {
+        Lion young = new Lion(false, loc, id, getParameters(), getRandomEngine());
         return young;
     }
 
@@ -102,7 +94,7 @@ public class Lion extends Predator
      * @return Number of offspring.
      */
     protected int birthNumber() {
-        return randInt(MAX_LITTER_SIZE) + 1;
+        return randInt(getParameters().getInt(Parameter.LION_MAX_LITTER_SIZE)) + 1;
     }
 
     /**
@@ -112,10 +104,10 @@ public class Lion extends Predator
      */
     public boolean huntSuccess(Time time) {
         if (time == Time.NIGHT) {
-            return randDouble() <= NIGHT_HUNT_PROBABILITY;
+            return randDouble() <= getParameters().get(Parameter.LION_NIGHT_HUNT_PROBABILITY);
         } 
         else {
-            return randDouble() <= DAY_HUNT_PROBABILITY;
+            return randDouble() <= getParameters().get(Parameter.LION_DAY_HUNT_PROBABILITY);
         }
     }
 }
@@ -0,0 +1,112 @@
+import java.util.Random;
+
+/**
+ * Enumeration class Neighbourhood - the blocks of cells surrounding a
+ * location that organisms look at: the 8 adjacent cells and the 24
+ * nearby cells (within 2 blocks).
+ *
+ * Each neighbourhood keeps a table of row and column offsets and a pool
+ * of precomputed random visiting orders over that table, so that callers
+ * can walk the cells around a location in a random order without
+ * building lists or Location objects. Offsets that fall outside the
+ * field must be skipped by the caller (see Field.contains).
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public enum Neighbourhood
+{
+    ADJACENT(1),
+    NEARBY(2);
+
+    // The number of precomputed visiting orders for each neighbourhood.
+    private static final int ORDER_COUNT = 64;
+    // The seed used to generate the visiting orders, so that the
+    // orders are the same on every run.
+    private static final long ORDER_SEED = 1111;
+
+    // The row offset of each cell in the neighbourhood.
+    private final int[] rowOffsets;
+    // The column offset of each cell in the neighbourhood.
+    private final int[] colOffsets;
+    // Random permutations of the cell numbers 0 .. size-1.
+    private final int[][] orders;
+
+    /**
+     * Build the offset table for a square neighbourhood of the given
+     * radius, excluding the centre cell.
+     * @param radius How many blocks the neighbourhood extends in each direction.
+     */
+    Neighbourhood(int radius)
+    {
+        int side = 2 * radius + 1;
+        int size = side * side - 1;
+        rowOffsets = new int[size];
+        colOffsets = new int[size];
+        int k = 0;
+        for(int roffset = -radius; roffset <= radius; roffset++) {
+            for(int coffset = -radius; coffset <= radius; coffset++) {
+                if(roffset != 0 || coffset != 0) {
+                    rowOffsets[k] = roffset;
+                    colOffsets[k] = coffset;
+                    k++;
+                }
+            }
+        }
+
+        Random rand = new Random(ORDER_SEED + radius);
+        orders = new int[ORDER_COUNT][];
+        for(int i = 0; i < ORDER_COUNT; i++) {
+            int[] order = new int[size];
+            for(int j = 0; j < size; j++) {
+                order[j] = j;
+            }
+            // Fisher-Yates shuffle.
+            for(int j = size - 1; j > 0; j--) {
+                int swap = rand.nextInt(j + 1);
+                int tmp = order[j];
+                order[j] = order[swap];
+                order[swap] = tmp;
+            }
+            orders[i] = order;
+        }
+    }
+
+    /**
+     * @return The number of cells in the neighbourhood.
+     */
+    public int size()
+    {
+        return rowOffsets.length;
+    }
+
+    /**
+     * @param k The number of a cell in the neighbourhood.
+     * @return The row offset of that cell from the centre.
+     */
+    public int rowOffset(int k)
+    {
+        return rowOffsets[k];
+    }
+
+    /**
+     * @param k The number of a cell in the neighbourhood.
+     * @return The column offset of that cell from the centre.
+     */
+    public int colOffset(int k)
+    {
+        return colOffsets[k];
+    }
+
+    /**
+     * Pick one of the precomputed visiting orders. This takes a single
+     * random draw and allocates nothing. The returned array is shared
+     * and must not be modified.
+     * @param rand The random generator used to pick the order.
+     * @return The cell numbers of the neighbourhood in a random order.
+     */
+    public int[] randomOrder(Random rand)
+    {
+        return orders[rand.nextInt(ORDER_COUNT)];
+    }
+}
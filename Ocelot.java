@@ -11,33 +11,24 @@ import java.util.Random;
  */
 public class Ocelot extends Predator
 {
-    // Characteristics shared by all ocelotes (class variables).
-    // The age at which a ocelot can start to breed.
-    private static final int BREEDING_AGE = 15;
-    // The age to which a ocelot can live.
-    private static final int MAX_AGE = 150;
-    // The likelihood of a ocelot breeding.
-    private static final double BREEDING_PROBABILITY = 0.6;
-    // The maximum number of births.
-    private static final int MAX_LITTER_SIZE = 5;
-    // Ocelots are nocturnal but are somewhat active during day as well.
-    // The probability of an ocelot to hunt at night.
-    private static final double NIGHT_HUNT_PROBABILITY = 0.75;
-    // The probability of an ocelot to hunt at day.
-    private static final double DAY_HUNT_PROBABILITY = 0.5;
-
     /**
      * Create a ocelot. A ocelot can be created as a new born (age zero
      * and not hungry) or with a random age and food level.
      * 
      * @param randomAge If true, the ocelot will have random age and hunger level.
      * @param location The location within the field.
+     * @param id The identity of the ocelot.
+     * @param parameters The parameters of the run, which the ocelot's
+     *                   offspring inherit.
+     * @param randomEngine The generator behind the run's random streams,
+     *                     which the ocelot's offspring inherit.
      */
-    public Ocelot(boolean randomAge, Location location)
+    public Ocelot(boolean randomAge, Location location, long id, Parameters parameters,
+                  RandomEngine randomEngine)
     {
-        super(location, Armadillo.class);
+        super(location, id, parameters, randomEngine, Armadillo.class);
         if(randomAge) {
-            setAge(randInt(MAX_AGE));
+            setAge(randInt(getParameters().getInt(Parameter.OCELOT_MAX_AGE)));
         }
         else {
             setAge(0);
@@ -51,10 +42,10 @@ public class Ocelot extends Predator
      */
     public boolean huntSuccess(Time time) {
         if (time == Time.NIGHT) {
-            return randDouble() <= NIGHT_HUNT_PROBABILITY;
+            return randDouble() <= getParameters().get(Parameter.OCELOT_NIGHT_HUNT_PROBABILITY);
         } 
         else {
-            return randDouble() <= DAY_HUNT_PROBABILITY;
+            return randDouble() <= getParameters().get(Parameter.OCELOT_DAY_HUNT_PROBABILITY);
         }
     }
 
@@ -68,13 +59,12 @@ public class Ocelot extends Predator
     }
 
     /**
-     *  Check if the ocelot is too old to live.
+     * Return the age to which the ocelot can live.
+     * @return The maximum age.
      */
-    protected void checkIfTooOld()
+    protected int maxAge()
     {
-        if(getAge() > MAX_AGE) {
-            setDead();
-        }
+        return getParameters().getInt(Parameter.OCELOT_MAX_AGE);
     }
 
     /**
@@ -98,16 +88,18 @@ public class Ocelot extends Predator
      */
     protected boolean breedSuccess()
     {
-        return getAge() >= BREEDING_AGE && randDouble() <= BREEDING_PROBABILITY;
+        return getAge() >= getParameters().getInt(Parameter.OCELOT_BREEDING_AGE)
+               && randDouble() <= getParameters().get(Parameter.OCELOT_BREEDING_PROBABILITY);
     }
 
     /**
      * Create a new ocelot as offspring.
      * @param loc The location off the new offspring.
+     * @param id The identity of the offspring.
      * @return The offspring.
      */
-    protected Animal offspring(Location loc) {
-        Ocelot young = new Ocelot(false,loc);
+    protected Animal offspring(Location loc, long id) {
+        Ocelot young = new Ocelot(false, loc, id, getParameters(), getRandomEngine());
         return young;
     }
 
@@ -116,6 +108,6 @@ public class Ocelot extends Predator
      * @return Number of offspring.
      */
     protected int birthNumber() {
-        return randInt(MAX_LITTER_SIZE) + 1;
+        return randInt(getParameters().getInt(Parameter.OCELOT_MAX_LITTER_SIZE)) + 1;
     }
 }
@@ -11,6 +11,8 @@ public abstract class Organism
     private boolean alive;
     // The organism's position.
     private Location location;
+    // The number of the organism's class (see Species).
+    private final int speciesIndex;
 
     /**
      * Constructor for objects of class Organism
@@ -20,6 +22,16 @@ public abstract class Organism
     {
         this.alive = true;
         this.location = location;
+        this.speciesIndex = Species.indexOf(getClass());
+    }
+
+    /**
+     * Return the number given to the organism's class.
+     * @return The species number of the organism.
+     */
+    public int getSpeciesIndex()
+    {
+        return speciesIndex;
     }
 
     /**
@@ -0,0 +1,161 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * The organisms placed in a field, kept in the order in which they
+ * were placed. Every entry remembers the cell it was placed in, and
+ * every cell remembers the slot of its entry, so the organism at a
+ * cell can be removed in constant time by leaving an empty slot
+ * behind. Empty slots and dead organisms are dropped in one pass by
+ * compact(), which keeps the remaining organisms in their original
+ * order so that runs stay reproducible.
+ *
+ * The list itself can only be changed through place, vacate, compact,
+ * copyFrom and clear; the List methods give a read-only view of the
+ * slots.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class OrganismList<T extends Organism> extends AbstractList<T>
+{
+    // The initial number of slots.
+    private static final int INITIAL_CAPACITY = 16;
+
+    // The organism in each slot, or null if the slot has been emptied.
+    private Organism[] slots;
+    // The cell that the organism in each slot was placed in.
+    private int[] cells;
+    // The slot of the organism placed in each cell, or -1 if none.
+    private final int[] slotOfCell;
+    // The number of slots in use, including empty ones.
+    private int size;
+
+    /**
+     * Create an empty list for a field with the given number of cells.
+     * @param cellCount The number of cells in the field.
+     */
+    public OrganismList(int cellCount)
+    {
+        slots = new Organism[INITIAL_CAPACITY];
+        cells = new int[INITIAL_CAPACITY];
+        slotOfCell = new int[cellCount];
+        Arrays.fill(slotOfCell, -1);
+        size = 0;
+    }
+
+    /**
+     * Add an organism at the end of the list, replacing the entry
+     * for any organism previously placed in the same cell.
+     * @param cell The cell the organism is placed in.
+     * @param organism The organism to add.
+     */
+    public void place(int cell, T organism)
+    {
+        vacate(cell);
+        if(size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+        slots[size] = organism;
+        cells[size] = cell;
+        slotOfCell[cell] = size;
+        size++;
+    }
+
+    /**
+     * Remove the entry for the organism placed in the given cell, if any.
+     * @param cell The cell to vacate.
+     */
+    public void vacate(int cell)
+    {
+        int slot = slotOfCell[cell];
+        if(slot >= 0) {
+            slots[slot] = null;
+            slotOfCell[cell] = -1;
+        }
+    }
+
+    /**
+     * Drop empty slots and dead organisms from the list, keeping
+     * the order of the others.
+     */
+    public void compact()
+    {
+        int kept = 0;
+        for(int slot = 0; slot < size; slot++) {
+            Organism organism = slots[slot];
+            if(organism != null && organism.isAlive()) {
+                slots[kept] = organism;
+                cells[kept] = cells[slot];
+                slotOfCell[cells[kept]] = kept;
+                kept++;
+            }
+            else if(organism != null) {
+                slotOfCell[cells[slot]] = -1;
+            }
+        }
+        Arrays.fill(slots, kept, size, null);
+        size = kept;
+    }
+
+    /**
+     * Make this list a copy of another list for a field of the same
+     * size, with the same organisms in the same slots.
+     * @param source The list to copy.
+     */
+    public void copyFrom(OrganismList<T> source)
+    {
+        if(slots.length < source.size) {
+            slots = new Organism[source.slots.length];
+            cells = new int[source.slots.length];
+        }
+        else if(size > source.size) {
+            Arrays.fill(slots, source.size, size, null);
+        }
+        System.arraycopy(source.slots, 0, slots, 0, source.size);
+        System.arraycopy(source.cells, 0, cells, 0, source.size);
+        System.arraycopy(source.slotOfCell, 0, slotOfCell, 0, slotOfCell.length);
+        size = source.size;
+    }
+
+    /**
+     * Remove every organism from the list.
+     */
+    @Override
+    public void clear()
+    {
+        for(int slot = 0; slot < size; slot++) {
+            if(slots[slot] != null) {
+                slotOfCell[cells[slot]] = -1;
+            }
+        }
+        Arrays.fill(slots, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Return the organism in a slot. This is null for slots emptied
+     * since the last compaction.
+     * @param index The slot number.
+     * @return The organism in that slot.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index)
+    {
+        if(index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (T) slots[index];
+    }
+
+    /**
+     * @return The number of slots in use, including emptied ones.
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+}
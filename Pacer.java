@@ -0,0 +1,135 @@
+/**
+ * Decide how fast Simulator.simulate runs its steps. A pacer can run
+ * them as fast as they go, at a fixed rate, or in real time.
+ *
+ * At a fixed rate, each step is due a fixed time after the one before,
+ * and the pacer sleeps only for what is left of that time once the
+ * step has been computed. A step that runs late pushes the schedule
+ * back, so slow steps are never made up for by a burst of fast ones.
+ *
+ * In real time, step n is due n step-times after the start, whatever
+ * happens. When the simulation falls behind, it runs steps back to
+ * back without showing them until it has caught up, so the view
+ * skips frames rather than falling further behind.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class Pacer
+{
+    // The number of steps a second simulate runs by default, and in
+    // place of a rate that is not more than zero.
+    static final int DEFAULT_STEPS_PER_SECOND = 20;
+
+    // The ways of pacing the steps.
+    private enum Mode { UNTHROTTLED, FIXED_RATE, REAL_TIME }
+
+    private final Mode mode;
+    // The time between two steps, in nanoseconds.
+    private final long stepNanos;
+    // When the next step is due, by System.nanoTime.
+    private long deadline;
+
+    /**
+     * Create a pacer.
+     * @param mode How the steps are paced.
+     * @param stepsPerSecond The rate of the steps, if they are paced.
+     */
+    private Pacer(Mode mode, double stepsPerSecond)
+    {
+        this.mode = mode;
+        stepNanos = mode == Mode.UNTHROTTLED ? 0 : (long) (1e9 / stepsPerSecond);
+    }
+
+    /**
+     * @return A pacer that runs the steps as fast as they go.
+     */
+    public static Pacer unthrottled()
+    {
+        return new Pacer(Mode.UNTHROTTLED, 0);
+    }
+
+    /**
+     * Create a pacer that runs at most a given number of steps a
+     * second, allowing for the time the steps take.
+     * @param stepsPerSecond The rate of the steps, more than zero;
+     *                       otherwise the default rate is used.
+     * @return The pacer.
+     */
+    public static Pacer fixedRate(double stepsPerSecond)
+    {
+        return new Pacer(Mode.FIXED_RATE, checkRate(stepsPerSecond));
+    }
+
+    /**
+     * Create a pacer that keeps the steps in step with the clock,
+     * skipping the showing of steps when it falls behind.
+     * @param stepsPerSecond The rate of the steps, more than zero;
+     *                       otherwise the default rate is used.
+     * @return The pacer.
+     */
+    public static Pacer realTime(double stepsPerSecond)
+    {
+        return new Pacer(Mode.REAL_TIME, checkRate(stepsPerSecond));
+    }
+
+    /**
+     * Check a rate of steps, falling back to the default rate if it
+     * is not more than zero.
+     * @param stepsPerSecond The rate of the steps.
+     * @return The rate to use.
+     */
+    private static double checkRate(double stepsPerSecond)
+    {
+        // Written this way round so that NaN fails too.
+        if (!(stepsPerSecond > 0)) {
+            System.out.println("The steps per second must be > zero.");
+            System.out.println("Using the default rate.");
+            return DEFAULT_STEPS_PER_SECOND;
+        }
+        return stepsPerSecond;
+    }
+
+    /**
+     * Start pacing a run of steps from now.
+     */
+    public void start()
+    {
+        deadline = System.nanoTime();
+    }
+
+    /**
+     * Decide whether a step that has just been run should be shown.
+     * Only a real time pacer that is more than a step behind skips it.
+     * @return true if the step should be shown.
+     */
+    public boolean shouldShow()
+    {
+        return mode != Mode.REAL_TIME || System.nanoTime() - deadline <= stepNanos;
+    }
+
+    /**
+     * Wait until the next step is due.
+     */
+    public void awaitNextStep()
+    {
+        if (mode == Mode.UNTHROTTLED) {
+            return;
+        }
+        deadline += stepNanos;
+        long now = System.nanoTime();
+        long wait = deadline - now;
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            }
+            catch(InterruptedException e) {
+                // ignore
+            }
+        }
+        else if (mode == Mode.FIXED_RATE) {
+            // Running late: the next step is due a full step from now.
+            deadline = now;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * The constants of the simulation that can be changed without
+ * recompiling: the chance of each kind of organism being created in
+ * a location, the life cycle of each species, and how long prey and
+ * predators can go without food. Each has the value the simulation
+ * was tuned with as its default; a Parameters object gives them
+ * other values for one run.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public enum Parameter
+{
+    // The probability that each kind of organism will be created in
+    // any given grid position.
+    GIRAFFE_CREATION_PROBABILITY(0.03),
+    LION_CREATION_PROBABILITY(0.02),
+    SNAKE_CREATION_PROBABILITY(0.02),
+    OCELOT_CREATION_PROBABILITY(0.02),
+    ARMADILLO_CREATION_PROBABILITY(0.06),
+    BERRYSHRUB_CREATION_PROBABILITY(0.02),
+    TREE_CREATION_PROBABILITY(0.02),
+
+    // For each species: the age at which it can start to breed, the
+    // age to which it can live, the likelihood of it breeding and the
+    // maximum number of births; for predators, the likelihood of a
+    // hunt succeeding at night and during the day. Whole parameters
+    // are given with the smallest value that makes sense.
+    LION_BREEDING_AGE(15, 0),
+    LION_MAX_AGE(180, 1),
+    LION_BREEDING_PROBABILITY(0.4),
+    LION_MAX_LITTER_SIZE(3, 1),
+    LION_NIGHT_HUNT_PROBABILITY(0.9),
+    LION_DAY_HUNT_PROBABILITY(0.25),
+    GIRAFFE_BREEDING_AGE(15, 0),
+    GIRAFFE_MAX_AGE(175, 1),
+    GIRAFFE_BREEDING_PROBABILITY(0.4),
+    GIRAFFE_MAX_LITTER_SIZE(2, 1),
+    SNAKE_BREEDING_AGE(15, 0),
+    SNAKE_MAX_AGE(250, 1),
+    SNAKE_BREEDING_PROBABILITY(0.5),
+    SNAKE_MAX_LITTER_SIZE(30, 1),
+    SNAKE_NIGHT_HUNT_PROBABILITY(0.5),
+    SNAKE_DAY_HUNT_PROBABILITY(0.9),
+    OCELOT_BREEDING_AGE(15, 0),
+    OCELOT_MAX_AGE(150, 1),
+    OCELOT_BREEDING_PROBABILITY(0.6),
+    OCELOT_MAX_LITTER_SIZE(5, 1),
+    OCELOT_NIGHT_HUNT_PROBABILITY(0.75),
+    OCELOT_DAY_HUNT_PROBABILITY(0.5),
+    ARMADILLO_BREEDING_AGE(10, 0),
+    ARMADILLO_MAX_AGE(30, 1),
+    ARMADILLO_BREEDING_PROBABILITY(0.5),
+    ARMADILLO_MAX_LITTER_SIZE(6, 1),
+
+    // The number of steps before a prey goes hungry after eating,
+    // and then before it dies of hunger.
+    PREY_FULL_STEPS(10, 0),
+    PREY_HUNGRY_STEPS(20, 1),
+    // The same for predators, which depends on what they eat.
+    ARMADILLO_HUNTER_FULL_STEPS(5, 0),
+    ARMADILLO_HUNTER_HUNGRY_STEPS(20, 1),
+    GIRAFFE_HUNTER_FULL_STEPS(10, 0),
+    GIRAFFE_HUNTER_HUNGRY_STEPS(40, 1);
+
+    // The value used unless another is given.
+    private final double defaultValue;
+    // Whether the parameter counts something, so only whole numbers
+    // make sense.
+    private final boolean whole;
+    // The smallest whole number that makes sense, for a parameter
+    // that counts something.
+    private final int minimum;
+
+    /**
+     * Create a probability, which makes sense from 0 to 1.
+     * @param defaultValue The value used unless another is given.
+     */
+    Parameter(double defaultValue)
+    {
+        this.defaultValue = defaultValue;
+        this.whole = false;
+        this.minimum = 0;
+    }
+
+    /**
+     * Create a parameter that counts something.
+     * @param defaultValue The value used unless another is given.
+     * @param minimum The smallest whole number that makes sense.
+     */
+    Parameter(double defaultValue, int minimum)
+    {
+        this.defaultValue = defaultValue;
+        this.whole = true;
+        this.minimum = minimum;
+    }
+
+    /**
+     * @return The value used unless another is given.
+     */
+    public double defaultValue()
+    {
+        return defaultValue;
+    }
+
+    /**
+     * @return Whether only whole numbers make sense; other values
+     *         are rounded when read.
+     */
+    public boolean isWhole()
+    {
+        return whole;
+    }
+
+    /**
+     * Return whether a value makes sense for the parameter: a
+     * probability from 0 to 1, or a whole number no smaller than the
+     * minimum once rounded.
+     * @param value The value.
+     * @return true if the value can be used.
+     */
+    public boolean accepts(double value)
+    {
+        if (whole) {
+            return Math.round(value) >= minimum;
+        }
+        return value >= 0 && value <= 1;
+    }
+
+    /**
+     * @return The values that make sense, in the form "a probability
+     *         from 0 to 1" or "a whole number of at least 1".
+     */
+    public String domain()
+    {
+        return whole ? "a whole number of at least " + minimum : "a probability from 0 to 1";
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * The values a sweep tries for one parameter: every value from low to
+ * high, both included.
+ *
+ * @param parameter The parameter being varied.
+ * @param low The smallest value tried.
+ * @param high The largest value tried.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public record ParameterRange(Parameter parameter, double low, double high)
+{
+    /**
+     * Read a range written as "NAME=low:high", for example
+     * "LION_MAX_AGE=120:240", or "NAME=value" for a single value.
+     * Every value of the range must make sense for the parameter (see
+     * Parameter.accepts), so a probability must be from 0 to 1 and a
+     * maximum age or litter size at least 1.
+     * @param text The range.
+     * @return The range read.
+     * @throws IllegalArgumentException If the text is not a range of
+     *         a known parameter, or the range holds values that make no
+     *         sense for it.
+     */
+    public static ParameterRange parse(String text)
+    {
+        int equals = text.indexOf('=');
+        if (equals < 0) {
+            throw new IllegalArgumentException("Expected NAME=low:high but got " + text);
+        }
+        String name = text.substring(0, equals);
+        Parameter parameter;
+        try {
+            parameter = Parameter.valueOf(name);
+        }
+        catch(IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown parameter " + name);
+        }
+        String[] bounds = text.substring(equals + 1).split(":");
+        double low = Double.parseDouble(bounds[0]);
+        double high = bounds.length > 1 ? Double.parseDouble(bounds[1]) : low;
+        // The values of a range lie between its ends.
+        if (!parameter.accepts(low) || !parameter.accepts(high)) {
+            throw new IllegalArgumentException(name + " must be " + parameter.domain()
+                                               + " but got " + text);
+        }
+        return new ParameterRange(parameter, low, high);
+    }
+
+    /**
+     * Return the value at a fraction of the way from low to high.
+     * @param fraction From 0 for low to 1 for high.
+     * @return The value.
+     */
+    public double at(double fraction)
+    {
+        return low + fraction * (high - low);
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+/**
+ * A value for every Parameter of the simulation. A Parameters object
+ * never changes; with returns a copy with one value changed. Animals
+ * keep the parameters they were created with and pass them on to
+ * their offspring, so several simulations with different parameters
+ * can run at the same time.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public final class Parameters
+{
+    // Every parameter at its default value.
+    public static final Parameters DEFAULTS = new Parameters(defaultValues());
+
+    // The value of each parameter, indexed by its ordinal.
+    private final double[] values;
+
+    /**
+     * @param values The value of each parameter, indexed by its ordinal.
+     */
+    private Parameters(double[] values)
+    {
+        this.values = values;
+    }
+
+    /**
+     * @param parameter A parameter.
+     * @return Its value.
+     */
+    public double get(Parameter parameter)
+    {
+        return values[parameter.ordinal()];
+    }
+
+    /**
+     * @param parameter A parameter that counts something.
+     * @return Its value, rounded to the nearest whole number.
+     */
+    public int getInt(Parameter parameter)
+    {
+        return (int) Math.round(values[parameter.ordinal()]);
+    }
+
+    /**
+     * Return a copy of these parameters with one value changed.
+     * @param parameter The parameter to change.
+     * @param value Its new value.
+     * @return The changed copy.
+     */
+    public Parameters with(Parameter parameter, double value)
+    {
+        double[] changed = values.clone();
+        changed[parameter.ordinal()] = value;
+        return new Parameters(changed);
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        return other instanceof Parameters parameters && Arrays.equals(values, parameters.values);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(values);
+    }
+
+    /**
+     * @return The parameters that differ from their defaults, in the
+     *         form "LION_MAX_AGE=200 SNAKE_BREEDING_AGE=10".
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder changed = new StringBuilder();
+        for (Parameter parameter : Parameter.values()) {
+            if (get(parameter) != parameter.defaultValue()) {
+                if (changed.length() > 0) {
+                    changed.append(' ');
+                }
+                changed.append(parameter).append('=').append(get(parameter));
+            }
+        }
+        return changed.length() > 0 ? changed.toString() : "defaults";
+    }
+
+    /**
+     * @return The default value of each parameter, by ordinal.
+     */
+    private static double[] defaultValues()
+    {
+        Parameter[] parameters = Parameter.values();
+        double[] values = new double[parameters.length];
+        for (Parameter parameter : parameters) {
+            values[parameter.ordinal()] = parameter.defaultValue();
+        }
+        return values;
+    }
+}
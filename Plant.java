@@ -16,12 +16,4 @@ public abstract class Plant extends Organism
     {
         super(location);
     }
-
-    /**
-     * Act.
-     * @param currentField The current state of the field.
-     * @param nextFieldState The new state being built.
-     * @param time The current day/night cycle.
-     */
-    abstract public void act(Field currentField, Field nextFieldState, Time time);
 }
@@ -0,0 +1,97 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wake core plants only on the day steps at which they have something
+ * to do: change phase, or be reset once their leaves have all been
+ * eaten. Plants only grow on day steps, which the schedule counts.
+ *
+ * The schedule is a timer wheel with one slot per day step, used
+ * round and round. A plant waits at most PHASE_3_AGE day steps, fewer
+ * than there are slots, so every plant in a slot is due on the day
+ * step the slot comes round at. A plant asked to be woken again before
+ * its turn comes is added to another slot, and skipped in the old one.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class PlantSchedule
+{
+    // The number of slots, a power of two greater than the longest wait.
+    private static final int SLOTS = 64;
+
+    // The plants to wake in each slot.
+    private final List<List<CorePlant>> slots;
+    // An empty list to put in place of a slot being emptied.
+    private List<CorePlant> spare;
+    // The number of day steps taken.
+    private int dayStep;
+
+    /**
+     * Create an empty schedule.
+     */
+    public PlantSchedule()
+    {
+        slots = new ArrayList<>(SLOTS);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            slots.add(new ArrayList<>());
+        }
+        spare = new ArrayList<>();
+    }
+
+    /**
+     * @return The number of day steps taken.
+     */
+    public int getDayStep()
+    {
+        return dayStep;
+    }
+
+    /**
+     * Wake a plant on a given day step.
+     * @param plant The plant, whose wake step is already set.
+     * @param step The number of the day step, after the current one
+     *             and less than SLOTS day steps away.
+     */
+    void add(CorePlant plant, int step)
+    {
+        if (step <= dayStep || step - dayStep >= SLOTS) {
+            throw new IllegalArgumentException("Cannot wake a plant at day step " + step
+                                               + " on day step " + dayStep);
+        }
+        slots.get(step & (SLOTS - 1)).add(plant);
+    }
+
+    /**
+     * Take a day step, waking the plants due on it.
+     * @param currentField The field currently occupied.
+     * @param nextFieldState The updated field, into which the plants
+     *                       have already been carried.
+     */
+    public void advance(Field currentField, Field nextFieldState)
+    {
+        dayStep++;
+        int slot = dayStep & (SLOTS - 1);
+        List<CorePlant> due = slots.get(slot);
+        slots.set(slot, spare);
+        for (CorePlant plant : due) {
+            // Plants rescheduled since they were added are skipped.
+            if (plant.getWakeStep() == dayStep) {
+                plant.wake(currentField, nextFieldState, dayStep);
+            }
+        }
+        due.clear();
+        spare = due;
+    }
+
+    /**
+     * Forget every plant and start counting day steps again.
+     */
+    public void clear()
+    {
+        for (List<CorePlant> slot : slots) {
+            slot.clear();
+        }
+        dayStep = 0;
+    }
+}
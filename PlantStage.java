@@ -0,0 +1,143 @@
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Grow the plants of a step as a stage of its own, which can run on a
+ * separate worker at the same time as the animals act.
+ *
+ * Plants do not act one by one. The plant layer of the current field
+ * is carried into the next field state in one pass, and a
+ * PlantSchedule wakes just the core plants that change phase or are
+ * reset on the step. Leaves never need to act at all. The first time
+ * the stage sees a field, or a field that has been cleared and
+ * refilled since, it hands all of its core plants to the schedule.
+ *
+ * The two stages never share data while they run. Plants read only
+ * the time of day and their own cells, and write only the plant
+ * layer of the next field state, while animals write only its animal
+ * layer. Animals read plants from the current field, which no one
+ * changes during the step, so they see the plants as they were at
+ * the start of it. A leaf eaten by an animal is only marked in the
+ * current field; once both stages are done, finish takes the eaten
+ * leaves off their plants and out of the next field state.
+ *
+ * Because eaten leaves leave their plant only at the end of a step, a
+ * plant that has lost all its leaves notices it on the step after they
+ * are eaten, not the same one. The results are the same
+ * whether the stage runs on a worker or on the calling thread.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class PlantStage
+{
+    // Runs the plants of each step.
+    private final Executor worker;
+    // The plants of the step in progress, or null between steps.
+    private CompletableFuture<Void> pending;
+    // Wakes the core plants on the day steps they have work on.
+    private final PlantSchedule schedule;
+    // The field the plants of the last step were carried into, and
+    // how many times it had been cleared when they were.
+    private Field scheduledField;
+    private int scheduledClearCount;
+
+    /**
+     * Create a stage that grows the plants on the calling thread when
+     * the step starts, before the animals act.
+     */
+    public PlantStage()
+    {
+        this(Runnable::run);
+    }
+
+    /**
+     * Create a stage that grows the plants on the given worker.
+     * @param worker The executor that runs the plants of each step.
+     */
+    public PlantStage(Executor worker)
+    {
+        this.worker = worker;
+        schedule = new PlantSchedule();
+    }
+
+    /**
+     * Create a stage that grows the plants on a thread of its own,
+     * so that they grow while the animals act.
+     * @return The stage.
+     */
+    public static PlantStage onOwnThread()
+    {
+        return new PlantStage(Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "plants");
+            // Do not keep the program running once the simulation ends.
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Start growing the plants of a step. The plants of a field the
+     * schedule does not hold yet are taken now, so that the animals
+     * may go on to use the current field.
+     * @param currentField The current state of the field.
+     * @param nextFieldState The empty field in which the next state is built.
+     * @param time The current day/night cycle.
+     */
+    public void start(Field currentField, Field nextFieldState, Time time)
+    {
+        List<Plant> plants = null;
+        if (currentField != scheduledField
+                || currentField.getClearCount() != scheduledClearCount) {
+            plants = currentField.getPlants();
+        }
+        scheduledField = nextFieldState;
+        scheduledClearCount = nextFieldState.getClearCount();
+        List<Plant> newPlants = plants;
+        pending = CompletableFuture.runAsync(() -> {
+            if (newPlants != null) {
+                schedule.clear();
+                for (Plant plant : newPlants) {
+                    if (plant instanceof CorePlant corePlant) {
+                        corePlant.adopt(schedule);
+                    }
+                }
+            }
+            nextFieldState.carryPlantsFrom(currentField);
+            if (time == Time.DAY) {
+                schedule.advance(currentField, nextFieldState);
+            }
+        }, worker);
+    }
+
+    /**
+     * Wait for the plants of the step to finish growing, then remove
+     * the leaves the animals ate. Call this once the animals of the
+     * step have acted.
+     * @param currentField The current state of the field.
+     * @param nextFieldState The field in which the next state was built.
+     */
+    public void finish(Field currentField, Field nextFieldState)
+    {
+        try {
+            pending.join();
+        }
+        catch(CompletionException e) {
+            // Report a plant's failure as if it had happened here.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        finally {
+            pending = null;
+        }
+        currentField.settleEatenLeaves(nextFieldState);
+    }
+}
@@ -0,0 +1,40 @@
+import java.util.Map;
+
+/**
+ * A snapshot of how many organisms a field holds at one moment:
+ * the number of live animals of each species, the number of
+ * infected animals and the number of edible leaves.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public record Population(Map<Class<?>, Integer> animalCounts, int infected, int leaves)
+{
+    /**
+     * Return the number of live animals of one species.
+     * @param animalClass The class of the species.
+     * @return The number of live animals of that class.
+     */
+    public int count(Class<?> animalClass)
+    {
+        return animalCounts.getOrDefault(animalClass, 0);
+    }
+
+    /**
+     * @return The counts in the form "Lion: 3 Snake: 5 Infected: 1 Leaves: 20".
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder details = new StringBuilder();
+        for(Map.Entry<Class<?>, Integer> entry : animalCounts.entrySet()) {
+            details.append(entry.getKey().getSimpleName())
+            .append(": ")
+            .append(entry.getValue())
+            .append(' ');
+        }
+        details.append("Infected: ").append(infected)
+        .append(" Leaves: ").append(leaves);
+        return details.toString();
+    }
+}
@@ -1,5 +1,6 @@
-import java.util.List;
-import java.util.Iterator;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Random;
 
 /**
@@ -10,14 +11,15 @@ import java.util.Random;
  */
 public abstract class Predator extends Animal
 {
-    // Represents whether the predator is full or hungry.
-    private boolean isFull;
-    // Tracks how long the predator has been hungry or full (in steps).
-    private int hungerTimer;
+    // The step on which the predator last ate, or would have had to
+    // eat to be as hungry as it is.
+    private int lastMealStep;
     // The number of steps before the predator goes hungry.
     private int FULL_STEPS;
     // The number of steps before the predator dies of hunger.
     private int HUNGRY_STEPS;
+    // The species number of the predator's prey.
+    private final int preySpecies;
 
     /**
      * Create a predator. A predator can be created as a new born (age zero
@@ -25,26 +27,31 @@ public abstract class Predator extends Animal
      * 
      * @param prey The class of the prey of the predator.
      * @param location The location within the field.
+     * @param id The predator's identity.
+     * @param parameters The parameters of the run.
+     * @param randomEngine The generator behind the run's random streams.
      */
-    public Predator(Location location, Class<?> prey)
+    public Predator(Location location, long id, Parameters parameters, RandomEngine randomEngine,
+                    Class<?> prey)
     {
-        super(location);
+        super(location, id, parameters, randomEngine);
 
-        isFull = false;
+        preySpecies = Species.indexOf(prey);
 
         if (prey == Armadillo.class) {
             // The number of steps the predator is full for
             // after eating a armadillo.
-            FULL_STEPS = 5;
-            HUNGRY_STEPS = 20;
+            FULL_STEPS = parameters.getInt(Parameter.ARMADILLO_HUNTER_FULL_STEPS);
+            HUNGRY_STEPS = parameters.getInt(Parameter.ARMADILLO_HUNTER_HUNGRY_STEPS);
         }
         else if (prey == Giraffe.class) {
             // The number of steps the predator is full for
             // after eating a giraffe.
-            FULL_STEPS = 10;
-            HUNGRY_STEPS = 40;
+            FULL_STEPS = parameters.getInt(Parameter.GIRAFFE_HUNTER_FULL_STEPS);
+            HUNGRY_STEPS = parameters.getInt(Parameter.GIRAFFE_HUNTER_HUNGRY_STEPS);
         }
-        hungerTimer = randInt(HUNGRY_STEPS); //predator is born with some hunger
+        //predator is born hungry, with some hunger already
+        lastMealStep = -Math.max(FULL_STEPS, 1) - randInt(HUNGRY_STEPS);
     }
 
     /**
@@ -53,35 +60,38 @@ public abstract class Predator extends Animal
      * or die of old age.
      * @param currentField The field currently occupied.
      * @param nextFieldState The updated field.
-     * @param time The current day/night cycle.
-     * @param weather The current weather conditions.
+     * @param context The conditions of this step.
      */
-    public void act(Field currentField, Field nextFieldState, Time time, Weather weather)
+    public void act(Field currentField, Field nextFieldState, StepContext context)
     {
-        incrementAge();
-        incrementHunger();
+        startStep(context.step());
         if(isAlive()) {
-            List<Location> freeLocations =
-                nextFieldState.getFreeAdjacentLocations(getLocation());
+            // The adjacent cells that are free in the next field state,
+            // and the random order in which they will be taken.
+            int freeCells = nextFieldState.getFreeAdjacentMask(getLocation());
+            int[] order = randomOrder(Neighbourhood.ADJACENT);
 
-            // Check if the predator is infected in the next field state.
-            checkIfInfected(nextFieldState); 
+            // Check if the predator is infected in the next field state,
+            // unless infection was spread over the whole grid this step.
+            if (context.infectionModel() == InfectionModel.PER_ANIMAL) {
+                checkIfInfected(nextFieldState);
+            }
 
             if (isInfected() && randDouble() < 0.5) {
                 // 50% chance of dying due to infection.
                 setDead();
             }
             // if predator can act considering weather circumstances.
-            else if (canAct(weather)) {
-                if(! freeLocations.isEmpty()) {
+            else if (canAct(context.weather())) {
+                if(freeCells != 0) {
                     // Try to breed.
-                    giveBirth(nextFieldState, freeLocations);
+                    freeCells = giveBirth(nextFieldState, freeCells, order);
                 }
                 // Move towards a source of food if found.
-                Location nextLocation = findFood(currentField, time);
-                if(nextLocation == null && ! freeLocations.isEmpty()) {
+                Location nextLocation = findFood(currentField, nextFieldState, context.time());
+                if(nextLocation == null && freeCells != 0) {
                     // No food found - try to move to a free location.
-                    nextLocation = freeLocations.remove(0);
+                    nextLocation = adjacentLocation(firstCell(freeCells, order));
                 }
                 // See if it was possible to move.`
                 if(nextLocation != null) {
@@ -101,59 +111,170 @@ public abstract class Predator extends Animal
     }
 
     /**
-     * Make this predator more hungry. This could result in the predator's death.
+     * Decide what the predator does in this step, for the intent step
+     * engine. This follows the same rules as act, except that free
+     * cells, mates, prey and infected neighbours are looked for in the
+     * current field. Only one prey is hunted; if another predator
+     * wins it, the predator moves to a free cell instead, or, with no
+     * free cell, dies of overcrowding as it would in act.
+     * @param currentField The field currently occupied.
+     * @param context The conditions of this step.
+     * @param intents Where the decision is recorded.
+     * @param slot The predator's slot in the intents.
      */
-    private void incrementHunger()
+    public void decide(Field currentField, StepContext context, Intents intents, int slot)
     {
-        if (isFull) {
-            hungerTimer++;
-            // If the predator is full and the hunger timer is greater
-            // than the FULL_STEPS variable, sets the predator to hungry
-            // state and resets hunger timer back to 0.
-            if (hungerTimer >= FULL_STEPS) {
-                isFull = false;
-                hungerTimer = 0;
+        startStep(context.step());
+        if(!isAlive()) {
+            return;
+        }
+        int freeCells = currentField.getFreeAdjacentMask(getLocation());
+        int[] order = randomOrder(Neighbourhood.ADJACENT);
+        long priority = randLong();
+
+        if (context.infectionModel() == InfectionModel.PER_ANIMAL) {
+            checkIfInfected(currentField);
+        }
+
+        if (isInfected() && randDouble() < 0.5) {
+            // 50% chance of dying due to infection.
+            setDead();
+        }
+        else if (canAct(context.weather())) {
+            int birthCells = 0;
+            long birthKey = 0;
+            if(freeCells != 0) {
+                birthCells = planBirths(currentField, freeCells, order);
+                freeCells &= ~birthCells;
+                birthKey = randLong();
             }
-        } else {
-            // If the predator is hungry and the hunger timer is greater
-            // than the HUNGRY_STEPS variable, sets the predator to dead.
-            hungerTimer++;
-            if (hungerTimer >= HUNGRY_STEPS) {
-                setDead();
-                hungerTimer = 0;
+
+            int foodCell = planHunt(currentField, context.time());
+            int target;
+            if(freeCells != 0) {
+                target = firstCell(freeCells, order);
             }
+            else {
+                // Overcrowding, unless the hunt succeeds and the
+                // predator moves into its prey's cell.
+                target = Intents.DIE;
+            }
+            intents.plan(slot, priority, target, foodCell, birthCells, birthKey);
         }
+        else {
+            // Let the predator stay in the same place.
+            intents.plan(slot, priority, Intents.STAY, Intents.NO_FOOD, 0, 0);
+        }
+    }
+
+    /**
+     * Kill the prey the predator decided to hunt, if it is still alive.
+     * @param currentField The field currently occupied.
+     * @param location Where the prey is.
+     * @return true if the prey was killed.
+     */
+    protected boolean eat(Field currentField, Location location)
+    {
+        Animal prey = currentField.getAnimalAt(location);
+        if (prey == null || !prey.isAlive()) {
+            return false;
+        }
+        prey.setDead();
+        ate();
+        return true;
+    }
+
+    /**
+     * Write the state of the predator, including how hungry it is.
+     * @param out Where to write the state.
+     * @throws IOException If the state cannot be written.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException
+    {
+        super.writeState(out);
+        out.writeInt(lastMealStep);
+    }
+
+    /**
+     * Take on a state written by writeState.
+     * @param in Where to read the state from.
+     * @throws IOException If the state cannot be read.
+     */
+    @Override
+    public void readState(DataInput in) throws IOException
+    {
+        super.readState(in);
+        lastMealStep = in.readInt();
+    }
+
+    /**
+     * Return the step on which the predator dies of hunger unless it
+     * eats first: HUNGRY_STEPS steps after it stops being full for
+     * FULL_STEPS steps, counting at least one step for each, as the
+     * hunger timer did.
+     * @return The number of the step.
+     */
+    @Override
+    protected int getStarvationStep()
+    {
+        return lastMealStep + Math.max(FULL_STEPS, 1) + Math.max(HUNGRY_STEPS, 1);
+    }
+
+    /**
+     * Record that the predator has eaten in the step it is acting in.
+     */
+    private void ate()
+    {
+        lastMealStep = getStep();
+    }
+
+    /**
+     * Move the steps the predator counts from on, including its last meal.
+     * @param steps The number of steps.
+     */
+    @Override
+    protected void moveSteps(int steps)
+    {
+        super.moveSteps(steps);
+        lastMealStep += steps;
     }
 
     /**
      * Look for prey adjacent to the current location.
      * Only the first live prey is eaten.
      * @param field The field currently occupied.
+     * @param nextFieldState The updated field, in which the prey may
+     *                       already have been placed.
      * @param time The current day/night cycle.
      * @return Where food was found, or null if it wasn't.
      */
-    private Location findFood(Field field, Time time)
+    private Location findFood(Field field, Field nextFieldState, Time time)
     {
-        List<Location> adjacent = field.getAdjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
+        int preyCells = field.getSpeciesAdjacentMask(preySpecies, getLocation());
+        if(preyCells == 0) {
+            return null;
+        }
+        int[] order = randomOrder(Neighbourhood.ADJACENT);
         Location foodLocation = null;
-        while(foodLocation == null && it.hasNext()) {
-            Location loc = it.next();
+        for(int i = 0; foodLocation == null && i < order.length; i++) {
+            if((preyCells & (1 << order[i])) == 0) {
+                continue;
+            }
+            Location loc = adjacentLocation(order[i]);
             Animal animal = field.getAnimalAt(loc);
             // Checks whether the specific predator hunts the prey found
             // and adjusts the probability of the hunt during the day
-            // and night time.
-            if(isPrey(animal) && huntSuccess(time)) {
+            // and night time. Prey killed earlier in this step is skipped.
+            if(animal.isAlive() && isPrey(animal) && huntSuccess(time)) {
                 if(animal instanceof Armadillo armadillo) {
-                    armadillo.setDead();
-                    hungerTimer = 0;
-                    isFull = true;
+                    nextFieldState.killAnimal(armadillo);
+                    ate();
                     foodLocation = loc;
                 }
                 else if(animal instanceof Giraffe giraffe) {
-                    giraffe.setDead();
-                    hungerTimer = 0;
-                    isFull = true;
+                    nextFieldState.killAnimal(giraffe);
+                    ate();
                     foodLocation = loc;
                 }
             }
@@ -161,25 +282,71 @@ public abstract class Predator extends Animal
         return foodLocation;
     }
 
+    /**
+     * Choose a prey to hunt, without killing it. The hunt may fail,
+     * as in findFood.
+     * @param field The field currently occupied.
+     * @param time The current day/night cycle.
+     * @return The adjacent cell of the prey, or Intents.NO_FOOD.
+     */
+    private int planHunt(Field field, Time time)
+    {
+        int preyCells = field.getSpeciesAdjacentMask(preySpecies, getLocation());
+        if(preyCells == 0) {
+            return Intents.NO_FOOD;
+        }
+        for (int k : randomOrder(Neighbourhood.ADJACENT)) {
+            if((preyCells & (1 << k)) != 0 && huntSuccess(time)) {
+                return k;
+            }
+        }
+        return Intents.NO_FOOD;
+    }
+
+    /**
+     * Choose the cells in which this predator places newborns at this
+     * step, if it breeds.
+     * @param currentField The field currently occupied.
+     * @param freeCells The adjacent cells free of animals.
+     * @param order The order in which the free cells are taken.
+     * @return The cells for newborns, as a mask.
+     */
+    private int planBirths(Field currentField, int freeCells, int[] order)
+    {
+        int birthCells = 0;
+        if (hasCompatibleMate(currentField)) {
+            int births = breed();
+            for (int b = 0; b < births && freeCells != 0; b++) {
+                int cell = firstCell(freeCells, order);
+                freeCells &= ~(1 << cell);
+                birthCells |= 1 << cell;
+            }
+        }
+        return birthCells;
+    }
+
     /**
      * Check whether this predator is to give birth at this step.
      * New births will be made into free adjacent locations.
      * @param nextFieldState The updated field.
-     * @param freeLocations The locations that are free in the current field.
+     * @param freeCells The adjacent cells that are free in the updated field.
+     * @param order The order in which the free cells are taken.
+     * @return The free cells left after the births.
      */
-    protected void giveBirth(Field nextFieldState, List<Location> freeLocations)
+    protected int giveBirth(Field nextFieldState, int freeCells, int[] order)
     {
         // Places new offspring into adjacent locations.
         if (hasCompatibleMate(nextFieldState)) {
             int births = breed();
-            if(births > 0) {
-                for (int b = 0; b < births && !freeLocations.isEmpty(); b++) {
-                    Location loc = freeLocations.remove(0);
-                    Animal young = offspring(loc);
-                    nextFieldState.placeAnimal(young, loc);
-                }
+            for (int b = 0; b < births && freeCells != 0; b++) {
+                int cell = firstCell(freeCells, order);
+                freeCells &= ~(1 << cell);
+                Location loc = adjacentLocation(cell);
+                Animal young = newborn(loc, newbornId());
+                nextFieldState.placeAnimal(young, loc);
             }
         }
+        return freeCells;
     }
 
     /**
@@ -206,13 +373,6 @@ public abstract class Predator extends Animal
      */
     abstract protected boolean isPrey(Animal animal);
 
-    /**
-     * Create a new predator as offspring.
-     * @param loc The location off the new offspring.
-     * @return The offspring.
-     */
-    abstract protected Animal offspring(Location loc);
-
     /**
      * A predator can breed successfully if it has reached the breeding age,
      * and luck is on its side.
@@ -232,9 +392,4 @@ public abstract class Predator extends Animal
      * @return true if the hunt is successful, false otherwise.
      */
     abstract protected boolean huntSuccess(Time time);
-
-    /**
-     *  Check if the predator is too old to live.
-     */
-    abstract protected void checkIfTooOld();
 }
@@ -1,5 +1,6 @@
-import java.util.List;
-import java.util.Iterator;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Random;
 /**
  * A general model of a prey in the simulation.
@@ -9,25 +10,27 @@ import java.util.Random;
  */
 public abstract class Prey extends Animal
 {
-    // Represents whether the prey is full or hungry.
-    private boolean isFull;
-    // Tracks how long the prey has been hungry or full (in steps).
-    private int hungerTimer;
+    // The step on which the prey last ate, or was born.
+    private int lastMealStep;
     // The number of steps before the prey goes hungry.
-    private static final int FULL_STEPS = 10;
+    private final int FULL_STEPS;
     // The number of steps before the prey dies of hunger.
-    private static final int HUNGRY_STEPS = 20;
+    private final int HUNGRY_STEPS;
 
     /**
      * Constructor for objects of class Prey
      * @param location The prey's location.
+     * @param id The prey's identity.
+     * @param parameters The parameters of the run.
+     * @param randomEngine The generator behind the run's random streams.
      */
-    public Prey(Location location)
+    public Prey(Location location, long id, Parameters parameters, RandomEngine randomEngine)
     {
         // initialise instance variables
-        super(location);
-        isFull = true; // prey is born full
-        hungerTimer = 0;
+        super(location, id, parameters, randomEngine);
+        FULL_STEPS = parameters.getInt(Parameter.PREY_FULL_STEPS);
+        HUNGRY_STEPS = parameters.getInt(Parameter.PREY_HUNGRY_STEPS);
+        lastMealStep = 0; // prey is born full
     }
 
     /**
@@ -35,44 +38,48 @@ public abstract class Prey extends Animal
      * around. Sometimes it will breed or die of old age.
      * @param currentField The field occupied.
      * @param nextFieldState The updated field.
-     * @param time The current day/night cycle.
-     * @param weather The current weather conditions.
+     * @param context The conditions of this step.
      */
-    public void act(Field currentField, Field nextFieldState, Time time, Weather weather)
+    public void act(Field currentField, Field nextFieldState, StepContext context)
     {
-        incrementAge();
-        incrementHunger();  
+        startStep(context.step());
         if(isAlive()) {
-            List<Location> freeLocations = nextFieldState.getFreeAdjacentLocations(getLocation());
+            // The adjacent cells that are free in the next field state,
+            // and the random order in which they will be taken.
+            int freeCells = nextFieldState.getFreeAdjacentMask(getLocation());
+            int[] order = randomOrder(Neighbourhood.ADJACENT);
 
-            // Check if the prey is infected in the next field state.
-            checkIfInfected(nextFieldState); 
+            // Check if the prey is infected in the next field state,
+            // unless infection was spread over the whole grid this step.
+            if (context.infectionModel() == InfectionModel.PER_ANIMAL) {
+                checkIfInfected(nextFieldState);
+            }
 
             if (isInfected() && randDouble() < 0.5) {
                 // 50% chance of dying due to infection.
                 setDead();
             }
             // if prey can act considering weather circumstances.
-            else if (canAct(weather)) {
-                if(!freeLocations.isEmpty()) {
+            else if (canAct(context.weather())) {
+                if(freeCells != 0) {
                     // try to breed.
-                    giveBirth(nextFieldState, freeLocations);
+                    freeCells = giveBirth(nextFieldState, freeCells, order);
                 }
 
                 Location nextLocation = null;
                 // Move towards a sourch of food if found.
-                if (!isFull) {
-                    Location plantLocation = findFood(currentField, time);
+                if (!isFull()) {
+                    Location plantLocation = findFood(currentField, context.time());
                     if (plantLocation != null) {
                         nextLocation = plantLocation;
                     }
                 }
 
                 // Try to move into a free location.
-                if(nextLocation == null && !freeLocations.isEmpty() && canMove(time)) {
-                    nextLocation = freeLocations.get(0);
+                if(nextLocation == null && freeCells != 0 && canMove(context.time())) {
+                    nextLocation = adjacentLocation(firstCell(freeCells, order));
                 } 
-                else if (!freeLocations.isEmpty()) {
+                else if (freeCells != 0) {
                     nextLocation = getLocation();
                 } 
 
@@ -95,29 +102,147 @@ public abstract class Prey extends Animal
     }
 
     /**
-     * Make this prey more hungry. This could result in the prey's death.
-     * After eating, the prey will be full for FULL_STEPS steps.
+     * Decide what the prey does in this step, for the intent step
+     * engine. This follows the same rules as act, except that free
+     * cells, mates and infected neighbours are looked for in the
+     * current field, and only leaves in cells free of animals are
+     * eaten. A prey that finds food eats it where it stands.
+     * @param currentField The field occupied.
+     * @param context The conditions of this step.
+     * @param intents Where the decision is recorded.
+     * @param slot The prey's slot in the intents.
      */
-    private void incrementHunger()
+    public void decide(Field currentField, StepContext context, Intents intents, int slot)
     {
-        if (isFull) {
-            hungerTimer++;
-            // If the prey is full and the hunger timer is greater
-            // than the FULL_STEPS variable, sets the prey to hungry
-            // state and resets hunger timer back to 0.
-            if (hungerTimer >= FULL_STEPS) {
-                isFull = false;
-                hungerTimer = 0;
+        startStep(context.step());
+        if(!isAlive()) {
+            return;
+        }
+        int freeCells = currentField.getFreeAdjacentMask(getLocation());
+        int[] order = randomOrder(Neighbourhood.ADJACENT);
+        long priority = randLong();
+
+        if (context.infectionModel() == InfectionModel.PER_ANIMAL) {
+            checkIfInfected(currentField);
+        }
+
+        if (isInfected() && randDouble() < 0.5) {
+            // 50% chance of dying due to infection.
+            setDead();
+        }
+        else if (canAct(context.weather())) {
+            int birthCells = 0;
+            long birthKey = 0;
+            if(freeCells != 0) {
+                birthCells = planBirths(currentField, freeCells, order);
+                freeCells &= ~birthCells;
+                birthKey = randLong();
             }
-        } else {
-            hungerTimer++;
-            // If the prey is hungry and the hunger timer is greater
-            // than the HUNGRY_STEPS variable, sets the prey to dead.
-            if (hungerTimer >= HUNGRY_STEPS) {
-                setDead();
-                hungerTimer = 0;
+
+            int foodCell = Intents.NO_FOOD;
+            if (!isFull()) {
+                foodCell = planFood(currentField, freeCells);
             }
+
+            int target;
+            if(foodCell == Intents.NO_FOOD && freeCells != 0 && canMove(context.time())) {
+                target = firstCell(freeCells, order);
+            }
+            else if (freeCells != 0 || foodCell != Intents.NO_FOOD) {
+                target = Intents.STAY;
+            }
+            else {
+                // Overcrowding.
+                target = Intents.DIE;
+            }
+            intents.plan(slot, priority, target, foodCell, birthCells, birthKey);
+        }
+        else {
+            // let the prey sleep in the same place.
+            intents.plan(slot, priority, Intents.STAY, Intents.NO_FOOD, 0, 0);
+        }
+    }
+
+    /**
+     * Eat the leaf the prey decided to eat, if it has not been eaten.
+     * @param currentField The field occupied.
+     * @param location Where the leaf is.
+     * @return true if the leaf was eaten.
+     */
+    protected boolean eat(Field currentField, Location location)
+    {
+        if (currentField.isLeafEaten(location)) {
+            return false;
         }
+        currentField.eatLeaf(location);
+        ate();
+        return true;
+    }
+
+    /**
+     * Write the state of the prey, including how hungry it is.
+     * @param out Where to write the state.
+     * @throws IOException If the state cannot be written.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException
+    {
+        super.writeState(out);
+        out.writeInt(lastMealStep);
+    }
+
+    /**
+     * Take on a state written by writeState.
+     * @param in Where to read the state from.
+     * @throws IOException If the state cannot be read.
+     */
+    @Override
+    public void readState(DataInput in) throws IOException
+    {
+        super.readState(in);
+        lastMealStep = in.readInt();
+    }
+
+    /**
+     * Return whether the prey is still full from its last meal in the
+     * step it is acting in. After eating, the prey will be full for
+     * FULL_STEPS steps.
+     * @return true if the prey is full.
+     */
+    private boolean isFull()
+    {
+        return getStep() - lastMealStep < FULL_STEPS;
+    }
+
+    /**
+     * Return the step on which the prey dies of hunger unless it eats
+     * first: HUNGRY_STEPS steps after it stops being full, counting
+     * at least one step for each, as the hunger timer did.
+     * @return The number of the step.
+     */
+    @Override
+    protected int getStarvationStep()
+    {
+        return lastMealStep + Math.max(FULL_STEPS, 1) + Math.max(HUNGRY_STEPS, 1);
+    }
+
+    /**
+     * Record that the prey has eaten in the step it is acting in.
+     */
+    private void ate()
+    {
+        lastMealStep = getStep();
+    }
+
+    /**
+     * Move the steps the prey counts from on, including its last meal.
+     * @param steps The number of steps.
+     */
+    @Override
+    protected void moveSteps(int steps)
+    {
+        super.moveSteps(steps);
+        lastMealStep += steps;
     }
 
     /**
@@ -129,18 +254,20 @@ public abstract class Prey extends Animal
      */
     private Location findFood(Field field, Time time)
     {
-        List<Location> adjacent = field.getAdjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
+        int leafCells = field.getLeafAdjacentMask(getLocation());
+        if (leafCells == 0) {
+            return null;
+        }
+        int[] order = randomOrder(Neighbourhood.ADJACENT);
         Location foodLocation = null;
-        while(foodLocation == null && it.hasNext()) {
-            Location loc = it.next();
-            Plant plant = field.getPlantAt(loc);
-            if (plant instanceof LeafCell leafCell) {
+        for(int i = 0; foodLocation == null && i < order.length; i++) {
+            if ((leafCells & (1 << order[i])) != 0) {
+                Location loc = adjacentLocation(order[i]);
                 // Checks whether the specific prey hunts the plant found.
-                if (canEat(leafCell)) {
-                    leafCell.removeLeaf();
-                    hungerTimer = 0;
-                    isFull = true;
+                // Leaves eaten earlier in this step are skipped.
+                if (!field.isLeafEaten(loc) && canEat(field.getLeafSpecies(loc))) {
+                    field.eatLeaf(loc);
+                    ate();
                     foodLocation = loc;
                 }
             }
@@ -148,25 +275,72 @@ public abstract class Prey extends Animal
         return foodLocation;
     }
 
+    /**
+     * Choose an edible leaf to eat, without eating it.
+     * @param field The field currently occupied.
+     * @param freeCells The adjacent cells free of animals, which are the
+     *                  only ones whose leaves may be eaten.
+     * @return The adjacent cell of the leaf, or Intents.NO_FOOD.
+     */
+    private int planFood(Field field, int freeCells)
+    {
+        int leafCells = field.getLeafAdjacentMask(getLocation()) & freeCells;
+        if (leafCells == 0) {
+            return Intents.NO_FOOD;
+        }
+        for (int k : randomOrder(Neighbourhood.ADJACENT)) {
+            if ((leafCells & (1 << k)) != 0
+                && canEat(field.getLeafSpecies(adjacentLocation(k)))) {
+                return k;
+            }
+        }
+        return Intents.NO_FOOD;
+    }
+
+    /**
+     * Choose the cells in which this prey places newborns at this
+     * step, if it breeds.
+     * @param currentField The field currently occupied.
+     * @param freeCells The adjacent cells free of animals.
+     * @param order The order in which the free cells are taken.
+     * @return The cells for newborns, as a mask.
+     */
+    private int planBirths(Field currentField, int freeCells, int[] order)
+    {
+        int birthCells = 0;
+        if (hasCompatibleMate(currentField)) {
+            int births = breed();
+            for (int b = 0; b < births && freeCells != 0; b++) {
+                int cell = firstCell(freeCells, order);
+                freeCells &= ~(1 << cell);
+                birthCells |= 1 << cell;
+            }
+        }
+        return birthCells;
+    }
+
     /**
      * Check whether this prey is to give birth at this step.
      * New births will be made into free adjacent locations.
      * @param nextFieldState The updated field.
-     * @param freeLocations The locations that are free in the current field.
+     * @param freeCells The adjacent cells that are free in the updated field.
+     * @param order The order in which the free cells are taken.
+     * @return The free cells left after the births.
      */
-    protected void giveBirth(Field nextFieldState, List<Location> freeLocations)
+    protected int giveBirth(Field nextFieldState, int freeCells, int[] order)
     {
         // Places new offspring into adjacent locations.
         if (hasCompatibleMate(nextFieldState)) {    
             int births = breed();
-            if(births > 0) {
-                for (int b = 0; b < births && !freeLocations.isEmpty(); b++) {
-                    Location loc = freeLocations.remove(0);
-                    Animal young = offspring(loc);
-                    nextFieldState.placeAnimal(young, loc);
-                }
+            for (int b = 0; b < births && freeCells != 0; b++) {
+                int cell = firstCell(freeCells, order);
+                freeCells &= ~(1 << cell);
+                Location loc = adjacentLocation(cell);
+                Animal young = newborn(loc, newbornId());
+                nextFieldState.placeAnimal(young, loc);
             }
         }
+        return freeCells;
     }
 
     /**
@@ -186,13 +360,6 @@ public abstract class Prey extends Animal
         return births;
     }
 
-    /**
-     * Create a new prey as offspring.
-     * @param loc The location off the new offspring.
-     * @return The offspring.
-     */
-    abstract protected Animal offspring(Location loc);
-
     /**
      * A prey can breed successfully if it has reached the breeding age,
      * and luck is on its side.
@@ -216,13 +383,8 @@ public abstract class Prey extends Animal
     /**
      * Checks if a prey can eat the plant
      * depending on the type of prey.
-     * @param leafCell The leaf to check.
+     * @param plantSpecies The species number of the plant owning the leaf.
      * @return true if the prey can eat the leaf, false if not.
      */
-    abstract protected boolean canEat(LeafCell leafCell);
-
-    /**
-     * Check if the prey is too old to live.
-     */
-    abstract protected void checkIfTooOld();
+    abstract protected boolean canEat(int plantSpecies);
 }
@@ -0,0 +1,37 @@
+/**
+ * Creates the generator behind every random stream of a run, for
+ * example SplitMix64::new (the default) or Xoshiro256StarStar::new.
+ * Different engines give different, equally reproducible, runs. The
+ * engine is part of a run's configuration, like its Parameters:
+ * animals keep the engine they were created with and pass it on to
+ * their offspring, so simulations with different engines can run at
+ * the same time.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public interface RandomEngine
+{
+    // The engine used unless another is chosen.
+    RandomEngine DEFAULT = SplitMix64::new;
+
+    /**
+     * Create a generator. It must be restarted before it is used.
+     * @return A new stream.
+     */
+    RandomStream create();
+
+    /**
+     * Provide a random stream started at the key made of two parts
+     * (see RandomStream.restart).
+     * @param key The first part of the key, such as a seed or an id.
+     * @param part The second part of the key, such as a step number.
+     * @return A new stream.
+     */
+    default RandomStream newStream(long key, long part)
+    {
+        RandomStream stream = create();
+        stream.restart(key, part);
+        return stream;
+    }
+}
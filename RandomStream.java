@@ -0,0 +1,193 @@
+import java.util.Random;
+
+/**
+ * A keyed random generator. A stream is started at a key, and every
+ * value drawn from it afterwards depends only on the key and on how
+ * many values were drawn before, never on which thread draws it or on
+ * what other streams have drawn. Keys are built from a few parts,
+ * such as the run's seed, a purpose, a step number or an animal's id.
+ *
+ * Subclasses supply the generator itself (see SplitMix64 and
+ * Xoshiro256StarStar); streams are created through the RandomEngine
+ * of the run, which decides which generator is used. A
+ * stream is a Random, so it can be passed to code that expects one,
+ * but it is not synchronized and must not be shared between threads.
+ *
+ * Besides single values, a stream can fill arrays with a batch of
+ * doubles, bounded ints or yes/no outcomes in one call.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+@SuppressWarnings("serial")
+public abstract class RandomStream extends Random
+{
+    // An odd constant derived from the golden ratio, used to step
+    // and combine keys.
+    protected static final long GAMMA = 0x9e3779b97f4a7c15L;
+    // The weight of the lowest bit of a 53-bit double fraction.
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    /**
+     * Create a stream. It must be restarted before it is used.
+     */
+    protected RandomStream()
+    {
+        super(0);
+    }
+
+    /**
+     * Start the stream again at the key made of two parts, without
+     * allocating.
+     * @param key The first part of the key, such as a seed or an id.
+     * @param part The second part of the key, such as a step number.
+     */
+    public void restart(long key, long part)
+    {
+        start(key(key, part));
+    }
+
+    /**
+     * Start the stream at a key.
+     * @param key The key, already combined from its parts.
+     */
+    protected abstract void start(long key);
+
+    /**
+     * @return The next 64 random bits of the stream.
+     */
+    @Override
+    public abstract long nextLong();
+
+    /**
+     * Combine two parts into one key. The result can itself be used as
+     * the first part of a longer key.
+     * @param key The first part.
+     * @param part The second part.
+     * @return The combined key.
+     */
+    public static long key(long key, long part)
+    {
+        return mix(mix(key) + part * GAMMA);
+    }
+
+    /**
+     * Start the stream again from a single number, as with any Random.
+     * @param seed The key of the stream.
+     */
+    @Override
+    public void setSeed(long seed)
+    {
+        start(mix(seed));
+    }
+
+    @Override
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public boolean nextBoolean()
+    {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Return a random int from 0 (inclusive) to bound (exclusive).
+     * This uses one multiplication instead of a division for nearly
+     * every value (Lemire's method).
+     * @param bound The upper bound, which must be positive.
+     * @return The random int.
+     */
+    @Override
+    public int nextInt(int bound)
+    {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        long product = (nextLong() >>> 32) * bound;
+        if ((product & 0xffffffffL) < bound) {
+            // Reject the few values that would make small results
+            // slightly more likely than large ones.
+            long threshold = ((1L << 32) - bound) % bound;
+            while ((product & 0xffffffffL) < threshold) {
+                product = (nextLong() >>> 32) * bound;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    @Override
+    protected int next(int bits)
+    {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    /**
+     * Fill part of an array with random doubles from 0 (inclusive)
+     * to 1 (exclusive), the same values that nextDouble would return.
+     * @param values The array to fill.
+     * @param from The first index to fill.
+     * @param to One past the last index to fill.
+     */
+    public void fillDoubles(double[] values, int from, int to)
+    {
+        for (int i = from; i < to; i++) {
+            values[i] = (nextLong() >>> 11) * DOUBLE_UNIT;
+        }
+    }
+
+    /**
+     * Fill part of an array with random ints from 0 (inclusive) to
+     * bound (exclusive), the same values that nextInt would return.
+     * @param values The array to fill.
+     * @param from The first index to fill.
+     * @param to One past the last index to fill.
+     * @param bound The upper bound, which must be positive.
+     */
+    public void fillInts(int[] values, int from, int to, int bound)
+    {
+        for (int i = from; i < to; i++) {
+            values[i] = nextInt(bound);
+        }
+    }
+
+    /**
+     * Decide a batch of yes/no outcomes, each yes with the same
+     * probability, as the bits of an array of longs: outcome i is bit
+     * i % 64 of element i / 64. Bits past the last outcome are cleared.
+     * @param outcomes The array to fill, with at least (count + 63) / 64 elements.
+     * @param count The number of outcomes.
+     * @param probability The probability of each outcome being yes.
+     */
+    public void fillBernoulli(long[] outcomes, int count, double probability)
+    {
+        // A yes is a 53-bit fraction below the probability, as with
+        // nextDouble() < probability.
+        long threshold = (long) Math.ceil(probability / DOUBLE_UNIT);
+        for (int word = 0; word < (count + 63) >>> 6; word++) {
+            long bits = 0;
+            int inWord = Math.min(64, count - (word << 6));
+            for (int bit = 0; bit < inWord; bit++) {
+                if ((nextLong() >>> 11) < threshold) {
+                    bits |= 1L << bit;
+                }
+            }
+            outcomes[word] = bits;
+        }
+    }
+
+    /**
+     * The SplitMix64 finaliser, which spreads every bit of its input
+     * over the whole output.
+     * @param z The value to hash.
+     * @return The hashed value.
+     */
+    protected static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -38,6 +38,23 @@ public class Randomizer
         }
     }
 
+    /**
+     * Provide a seed for the random streams of a simulation run
+     * (see RandomStream). Runs with the same seed perform exactly
+     * the same, whichever step engine and how many threads they use.
+     * @return The fixed seed if 'useShared' is set, otherwise a new
+     *         seed every time.
+     */
+    public static long getSeed()
+    {
+        if(useShared) {
+            return SEED;
+        }
+        else {
+            return new Random().nextLong();
+        }
+    }
+
     /**
      * Reset the randomization.
      * This will have no effect if randomization is not 
@@ -0,0 +1,26 @@
+import java.util.List;
+
+/**
+ * Run the animals of a step on the calling thread, in the order of
+ * the field's list of animals.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class SequentialStepEngine implements StepEngine
+{
+    /**
+     * Let every animal in the current field act once, one at a time.
+     * @param currentField The current state of the field.
+     * @param nextFieldState The empty field in which the next state is built.
+     * @param context The step number, time, weather and infection model.
+     */
+    @Override
+    public void step(Field currentField, Field nextFieldState, StepContext context)
+    {
+        List<Animal> animals = currentField.getAnimals();
+        for (Animal anAnimal : animals) {
+            anAnimal.act(currentField, nextFieldState, context);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Something that is shown the state of a simulation after it is reset
+ * and after every step, such as the graphical SimulatorView. A
+ * simulation without a view is given NONE, which does nothing, so it
+ * never touches the window system and can run where there is no
+ * display.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public interface SimulationObserver
+{
+    // An observer that ignores the simulation.
+    SimulationObserver NONE = (step, time, field, weather) -> {};
+
+    /**
+     * Show the current status of the field. The field may change as
+     * soon as this returns, so anything kept for later must be copied.
+     * @param step Which iteration step it is.
+     * @param time The current day/night cycle.
+     * @param field The field whose status is to be displayed.
+     * @param weather The current weather conditions.
+     */
+    void showStatus(int step, Time time, Field field, Weather weather);
+}
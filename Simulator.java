@@ -14,24 +14,17 @@ public class Simulator
     private static final int DEFAULT_WIDTH = 150;
     // The default depth of the grid.
     private static final int DEFAULT_DEPTH = 100;
-    // The probability that a ocelot will be created in any given grid position.
-    private static final double OCELOT_CREATION_PROBABILITY = 0.02;
-    // The probability that a armadillo will be created in any given position.
-    private static final double ARMADILLO_CREATION_PROBABILITY = 0.06;    
-    // The probability that a giraffe will be created in any given position.
-    private static final double GIRAFFE_CREATION_PROBABILITY = 0.03;
-    // The probability that a snake will be created in any given position.
-    private static final double SNAKE_CREATION_PROBABILITY = 0.02;
-    // The probability that a lion will be created in any given position.
-    private static final double LION_CREATION_PROBABILITY = 0.02;
-    // The probability that a berry shrub will be created in any given position
-    private static final double BERRYSHRUB_CREATION_PROBABILITY = 0.02;
-    // The probability that a tree will be created in any given position
-    private static final double TREE_CREATION_PROBABILITY = 0.02;
     // The number of steps in one day/night cycle.
-    private static final int DAY_STEPS = 5;
+    static final int DAY_STEPS = 5;
     // The number of steps in one weather cycle.
-    private static final int WEATHER_STEPS = 10;
+    static final int WEATHER_STEPS = 10;
+    // The purposes of the random streams drawn from by the simulator
+    // itself, which are keyed by the seed, the purpose and a number.
+    private static final long POPULATE_STREAM = 1;
+    private static final long WEATHER_STREAM = 2;
+    // The number of chances drawn for each location when populating,
+    // one for each kind of organism tried in turn.
+    private static final int CREATION_DRAWS = 7;
     // The current state of day/night.
     private Time time;
     // The current state of weather.
@@ -39,10 +32,39 @@ public class Simulator
 
     // The current state of the field.
     private Field field;
+    // The field in which the next state is built. The two fields
+    // swap roles after every step, so neither is reallocated.
+    private Field nextFieldState;
     // The current step of the simulation.
     private int step;
-    // A graphical view of the simulation.
-    private final SimulatorView view;
+    // What is shown the field after every step: a graphical view of
+    // the simulation, or SimulationObserver.NONE if it runs without one.
+    private SimulationObserver observer;
+    // Whether the population is printed after every step.
+    private final boolean printing;
+    // Decides when the simulation stops being worth running.
+    private ViabilityRule viabilityRule;
+    // How infection spreads between neighbouring animals.
+    private InfectionModel infectionModel;
+    // The seed from which every random decision of a run follows.
+    private long seed;
+    // The creation probabilities and species constants of the run.
+    private Parameters parameters;
+    // The generator behind every random stream of the run.
+    private final RandomEngine randomEngine;
+    // Runs the animals of each step.
+    private StepEngine stepEngine;
+    // Grows the plants of each step.
+    private PlantStage plantStage;
+    // Kills the animals that die of old age or hunger on each step,
+    // or null if each animal checks for itself as it acts.
+    private DeathSchedule deathSchedule;
+    // Decides how fast simulate runs the steps.
+    private Pacer pacer;
+    // Whether the fields keep their leaves in arrays from the next reset.
+    private boolean leafArrays;
+    // Whether a death schedule kills the animals from the next reset.
+    private boolean scheduledDeaths;
 
     /**
      * Construct a simulation field with default size.
@@ -58,6 +80,69 @@ public class Simulator
      * @param width The simulation's width.
      */
     public Simulator(int depth, int width)
+    {
+        this(depth, width, Randomizer.getSeed(), Parameters.DEFAULTS, RandomEngine.DEFAULT, true);
+    }
+
+    /**
+     * Construct a simulation with no view that prints nothing, so
+     * that many can run side by side, for example in an Ensemble.
+     * It never touches the window system, so it also runs where there
+     * is no display. An observer can still be given with setObserver.
+     * @param depth The simulation's depth.
+     * @param width The simulation's width.
+     * @param seed The seed of the random streams.
+     * @return The simulation, reset to its starting position.
+     */
+    public static Simulator withoutView(int depth, int width, long seed)
+    {
+        return withoutView(depth, width, seed, Parameters.DEFAULTS);
+    }
+
+    /**
+     * Construct a simulation with no view that prints nothing, with
+     * the given parameters, for example for a Sweep.
+     * @param depth The simulation's depth.
+     * @param width The simulation's width.
+     * @param seed The seed of the random streams.
+     * @param parameters The creation probabilities and species constants.
+     * @return The simulation, reset to its starting position.
+     */
+    public static Simulator withoutView(int depth, int width, long seed, Parameters parameters)
+    {
+        return withoutView(depth, width, seed, parameters, RandomEngine.DEFAULT);
+    }
+
+    /**
+     * Construct a simulation with no view that prints nothing, with
+     * the given parameters and random generator. The generator is
+     * the simulation's own, so simulations with different generators
+     * can run side by side.
+     * @param depth The simulation's depth.
+     * @param width The simulation's width.
+     * @param seed The seed of the random streams.
+     * @param parameters The creation probabilities and species constants.
+     * @param randomEngine The generator behind the random streams.
+     * @return The simulation, reset to its starting position.
+     */
+    public static Simulator withoutView(int depth, int width, long seed, Parameters parameters,
+                                        RandomEngine randomEngine)
+    {
+        return new Simulator(depth, width, seed, parameters, randomEngine, false);
+    }
+
+    /**
+     * Construct a simulation field with specific size and seed.
+     * @param depth The simulation's depth.
+     * @param width The simulation's width.
+     * @param seed The seed of the random streams.
+     * @param parameters The creation probabilities and species constants.
+     * @param randomEngine The generator behind the random streams.
+     * @param withView Whether to show and report the simulation. If
+     *                 there is no display, it is only reported.
+     */
+    private Simulator(int depth, int width, long seed, Parameters parameters,
+                      RandomEngine randomEngine, boolean withView)
     {
         if(width <= 0 || depth <= 0) {
             System.out.println("The dimensions must be >= zero.");
@@ -67,9 +152,26 @@ public class Simulator
         }
 
         field = new Field(depth, width);
-        view = new SimulatorView(depth, width);
+        nextFieldState = new Field(depth, width);
+        observer = SimulationObserver.NONE;
+        if(withView && SimulatorView.isDisplayAvailable()) {
+            observer = new SimulatorView(depth, width);
+        }
+        else if(withView) {
+            System.out.println("No display is available.");
+            System.out.println("Running without a view.");
+        }
+        printing = withView;
         time = Time.DAY;
         weather = Weather.CLEAR;
+        viabilityRule = ViabilityRule.PREY_AND_PREDATOR;
+        infectionModel = InfectionModel.PER_ANIMAL;
+        stepEngine = new SequentialStepEngine();
+        plantStage = new PlantStage();
+        pacer = Pacer.fixedRate(Pacer.DEFAULT_STEPS_PER_SECOND);
+        this.seed = seed;
+        this.parameters = parameters;
+        this.randomEngine = randomEngine;
 
         reset();
     }
@@ -88,24 +190,42 @@ public class Simulator
      * Iterate over the whole field updating the state of each ocelot and armadillo.
      */
     public void simulateOneStep()
+    {
+        advance();
+        observer.showStatus(step, time, field, weather);
+    }
+
+    /**
+     * Run a single step without showing it.
+     */
+    private void advance()
     {
         step++;
         // Use a separate Field to store the starting state of
-        // the next step.
-        Field nextFieldState = new Field(field.getDepth(), field.getWidth());
+        // the next step. It still holds the state from two steps
+        // ago, so it is emptied first.
+        nextFieldState.clear();
 
-        List<Animal> animals = field.getAnimals();
-        for (Animal anAnimal : animals) {
-            anAnimal.act(field, nextFieldState, time, weather);
+        if (infectionModel == InfectionModel.GRID) {
+            field.spreadInfection();
         }
 
-        List<Plant> plants = field.getPlants();
-        for (Plant plant : plants) {
-            plant.act(field, nextFieldState, time);
+        if (deathSchedule != null) {
+            // Animals that die of old age or hunger on this step do so
+            // before any animal acts.
+            deathSchedule.start(field, nextFieldState, step);
         }
 
-        // Replace the old state with the new one.
+        StepContext context = new StepContext(step, time, weather, infectionModel);
+        plantStage.start(field, nextFieldState, time);
+        stepEngine.step(field, nextFieldState, context);
+        plantStage.finish(field, nextFieldState);
+
+        // Replace the old state with the new one, keeping the old
+        // field to build the following step in.
+        Field oldState = field;
         field = nextFieldState;
+        nextFieldState = oldState;
 
         // Changes the day/time cycle every 10 steps.
         changeTime();
@@ -113,24 +233,152 @@ public class Simulator
         // Changes the weather cycle every 5 steps.
         changeWeather();
 
-        reportStats();
-        view.showStatus(step, time, field, weather);
+        if (printing) {
+            reportStats();
+        }
     }
 
     /**
-     * Run the simulation for the given number of steps.
+     * Run the simulation for the given number of steps, as fast as the
+     * pacer allows. A real time pacer may skip showing some steps, but
+     * the last step run is always shown.
      * Stop before the given number of steps if it ceases to be viable.
      * @param numSteps The number of steps to run for.
      */
     public void simulate(int numSteps)
     {
-        reportStats();
-        for(int n = 1; n <= numSteps && field.isViable(); n++) {
-            simulateOneStep();
-            delay(50);         // adjust this to change execution speed
+        if (printing) {
+            reportStats();
+        }
+        boolean shown = true;
+        pacer.start();
+        for(int n = 1; n <= numSteps && viabilityRule.isViable(field); n++) {
+            advance();
+            shown = pacer.shouldShow();
+            if (shown) {
+                observer.showStatus(step, time, field, weather);
+            }
+            pacer.awaitNextStep();
+        }
+        if (!shown) {
+            observer.showStatus(step, time, field, weather);
         }
     }
 
+    /**
+     * Set the rule that decides when simulate stops early.
+     * The default requires at least one prey and one predator.
+     * @param viabilityRule The rule to use.
+     */
+    public void setViabilityRule(ViabilityRule viabilityRule)
+    {
+        this.viabilityRule = viabilityRule;
+    }
+
+    /**
+     * Set what is shown the field after every step, in place of the
+     * graphical view, for example to run a view on a simulation made
+     * with withoutView. It is shown the current field at once.
+     * @param observer The observer to use, or SimulationObserver.NONE.
+     */
+    public void setObserver(SimulationObserver observer)
+    {
+        this.observer = observer;
+        observer.showStatus(step, time, field, weather);
+    }
+
+    /**
+     * Set how infection spreads between neighbouring animals.
+     * The default is InfectionModel.PER_ANIMAL.
+     * @param infectionModel The infection model to use.
+     */
+    public void setInfectionModel(InfectionModel infectionModel)
+    {
+        this.infectionModel = infectionModel;
+    }
+
+    /**
+     * Set how the animals of each step are run, for example on
+     * several threads with a TiledStepEngine, or independently of the
+     * order of the animals with an IntentStepEngine. The default is a
+     * SequentialStepEngine.
+     * @param stepEngine The step engine to use.
+     */
+    public void setStepEngine(StepEngine stepEngine)
+    {
+        this.stepEngine = stepEngine;
+    }
+
+    /**
+     * Set how the plants of each step are grown, for example on a
+     * thread of their own while the animals act, with
+     * PlantStage.onOwnThread(). The default grows them on the
+     * simulation's thread.
+     * @param plantStage The plant stage to use.
+     */
+    public void setPlantStage(PlantStage plantStage)
+    {
+        this.plantStage = plantStage;
+    }
+
+    /**
+     * Set how fast simulate runs the steps: as fast as they go with
+     * Pacer.unthrottled(), at a steady rate with Pacer.fixedRate, or
+     * in step with the clock, skipping frames, with Pacer.realTime.
+     * The default is a fixed rate of 20 steps a second.
+     * @param pacer The pacer to use.
+     */
+    public void setPacer(Pacer pacer)
+    {
+        this.pacer = pacer;
+    }
+
+    /**
+     * Set whether the fields keep their leaves in arrays rather than
+     * as LeafCell objects, which takes far less memory when there are
+     * many leaves. Runs are the same either way. Like the seed, it
+     * takes effect from the next reset.
+     * @param leafArrays Whether to keep the leaves in arrays.
+     */
+    public void setLeafArrays(boolean leafArrays)
+    {
+        this.leafArrays = leafArrays;
+    }
+
+    /**
+     * Set whether the animals that die of old age or hunger are killed
+     * by a DeathSchedule, all at once before the animals of a step act,
+     * rather than each checking for itself as it acts. Like the seed,
+     * it takes effect from the next reset.
+     * @param scheduledDeaths Whether to kill the animals by a schedule.
+     */
+    public void setScheduledDeaths(boolean scheduledDeaths)
+    {
+        this.scheduledDeaths = scheduledDeaths;
+    }
+
+    /**
+     * Set the seed of the random streams. Every random decision in a
+     * run follows from the seed, so two runs with the same seed and
+     * the same step engine give the same results. The seed takes
+     * effect from the next reset.
+     * @param seed The seed to use.
+     */
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * Set the creation probabilities and species constants. Like the
+     * seed, they take effect from the next reset.
+     * @param parameters The parameters to use.
+     */
+    public void setParameters(Parameters parameters)
+    {
+        this.parameters = parameters;
+    }
+
     /**
      * Reset the simulation to a starting position.
      */
@@ -138,50 +386,90 @@ public class Simulator
     {
         time = Time.DAY;
         step = 0;
-        populate();
-        view.showStatus(step, time, field, weather);
+        weather = Weather.CLEAR;
+        if (field.hasLeafArrays() != leafArrays) {
+            field = new Field(field.getDepth(), field.getWidth(), leafArrays);
+            nextFieldState = new Field(field.getDepth(), field.getWidth(), leafArrays);
+        }
+        deathSchedule = scheduledDeaths ? new DeathSchedule() : null;
+        populate(field, seed, parameters, randomEngine);
+        observer.showStatus(step, time, field, weather);
+    }
+
+    /**
+     * Randomly populate a field with prey, predators and plants. What
+     * goes in each location is drawn from a stream keyed by the seed
+     * and the row.
+     * @param field The field to populate. It is cleared first.
+     * @param seed The seed of the run.
+     * @param parameters The creation probabilities and species constants.
+     * @param randomEngine The generator behind the random streams.
+     */
+    static void populate(Field field, long seed, Parameters parameters, RandomEngine randomEngine)
+    {
+        populate(field, seed, parameters, randomEngine, 0, field.getDepth(), 0);
     }
 
     /**
-     * Randomly populate the field with prey, predators and plants.
+     * Randomly populate some rows of a field as the same rows of a
+     * larger field would be, for a StripWorker that holds part of it.
+     * @param field The field to populate. It is cleared first.
+     * @param seed The seed of the run.
+     * @param parameters The creation probabilities and species constants.
+     * @param randomEngine The generator behind the random streams.
+     * @param fromRow The first row of the field to populate.
+     * @param toRow One past the last row of the field to populate.
+     * @param rowOffset The row of the larger field that row 0 of this
+     *                  field stands for.
      */
-    private void populate()
+    static void populate(Field field, long seed, Parameters parameters, RandomEngine randomEngine,
+                         int fromRow, int toRow, int rowOffset)
     {
-        Random rand = Randomizer.getRandom();
         field.clear();
-        for(int row = 0; row < field.getDepth(); row++) {
+        long populateKey = RandomStream.key(seed, POPULATE_STREAM);
+        double[] draws = new double[field.getWidth() * CREATION_DRAWS];
+        for(int row = fromRow; row < toRow; row++) {
+            // Draw the chances of every location in the row at once.
+            RandomStream rand = randomEngine.newStream(populateKey, row + rowOffset);
+            rand.fillDoubles(draws, 0, draws.length);
             for(int col = 0; col < field.getWidth(); col++) {
-                if(rand.nextDouble() <= GIRAFFE_CREATION_PROBABILITY) {
+                int d = col * CREATION_DRAWS;
+                if(draws[d] <= parameters.get(Parameter.GIRAFFE_CREATION_PROBABILITY)) {
                     Location location = new Location(row, col);
-                    Giraffe giraffe = new Giraffe(true, location);
+                    Giraffe giraffe = new Giraffe(true, location, rand.nextLong(), parameters,
+                                                  randomEngine);
                     field.placeAnimal(giraffe, location);
                 }
-                else if(rand.nextDouble() <= LION_CREATION_PROBABILITY) {
+                else if(draws[d + 1] <= parameters.get(Parameter.LION_CREATION_PROBABILITY)) {
                     Location location = new Location(row, col);
-                    Lion lion = new Lion(true, location);
+                    Lion lion = new Lion(true, location, rand.nextLong(), parameters,
+                                         randomEngine);
                     field.placeAnimal(lion, location);
                 }
-                else if(rand.nextDouble() <= SNAKE_CREATION_PROBABILITY) {
+                else if(draws[d + 2] <= parameters.get(Parameter.SNAKE_CREATION_PROBABILITY)) {
                     Location location = new Location(row, col);
-                    Snake snake = new Snake(true, location);
+                    Snake snake = new Snake(true, location, rand.nextLong(), parameters,
+                                            randomEngine);
                     field.placeAnimal(snake, location);
                 }
-                else if(rand.nextDouble() <= OCELOT_CREATION_PROBABILITY) {
+                else if(draws[d + 3] <= parameters.get(Parameter.OCELOT_CREATION_PROBABILITY)) {
                     Location location = new Location(row, col);
-                    Ocelot ocelot = new Ocelot(true, location);
+                    Ocelot ocelot = new Ocelot(true, location, rand.nextLong(), parameters,
+                                               randomEngine);
                     field.placeAnimal(ocelot, location);
                 }
-                else if(rand.nextDouble() <= ARMADILLO_CREATION_PROBABILITY) {
+                else if(draws[d + 4] <= parameters.get(Parameter.ARMADILLO_CREATION_PROBABILITY)) {
                     Location location = new Location(row, col);
-                    Armadillo armadillo = new Armadillo(true, location);
+                    Armadillo armadillo = new Armadillo(true, location, rand.nextLong(), parameters,
+                                                        randomEngine);
                     field.placeAnimal(armadillo, location);
                 }
-                else if(rand.nextDouble() <= BERRYSHRUB_CREATION_PROBABILITY) {
+                else if(draws[d + 5] <= parameters.get(Parameter.BERRYSHRUB_CREATION_PROBABILITY)) {
                     Location location = new Location(row, col);
                     BerryShrub berryShrub = new BerryShrub(location);
                     field.placePlant(berryShrub, location);
                 }
-                else if(rand.nextDouble() <= TREE_CREATION_PROBABILITY) {
+                else if(draws[d + 6] <= parameters.get(Parameter.TREE_CREATION_PROBABILITY)) {
                     Location location = new Location(row, col);
                     Tree tree = new Tree(location);
                     field.placePlant(tree, location);
@@ -191,6 +479,31 @@ public class Simulator
         }
     }
 
+    /**
+     * @return The number of steps simulated since the last reset.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return The population counts of the current field.
+     */
+    public Population getPopulation()
+    {
+        return field.getPopulation();
+    }
+
+    /**
+     * @return Whether the simulation is still worth running, by the
+     *         current viability rule.
+     */
+    public boolean isViable()
+    {
+        return viabilityRule.isViable(field);
+    }
+
     /**
      * Report on the number of each type of animal in the field.
      */
@@ -201,17 +514,15 @@ public class Simulator
     }
 
     /**
-     * Pause for a given time.
-     * @param milliseconds The time to pause for, in milliseconds
-     */ 
-    private void delay(int milliseconds)
+     * Return the stream that draws the weather chosen after a step.
+     * @param randomEngine The generator behind the random streams.
+     * @param seed The seed of the run.
+     * @param step The number of the step.
+     * @return The weather stream of that step.
+     */
+    static RandomStream weatherStream(RandomEngine randomEngine, long seed, int step)
     {
-        try {
-            Thread.sleep(milliseconds);
-        }
-        catch(InterruptedException e) {
-            // ignore
-        }
+        return randomEngine.newStream(RandomStream.key(seed, WEATHER_STREAM), step);
     }
 
     /**
@@ -232,7 +543,7 @@ public class Simulator
     private void changeWeather()
     {
         if (step % WEATHER_STEPS == 0) {
-            weather = Weather.randomWeather();
+            weather = Weather.randomWeather(weatherStream(randomEngine, seed, step));
         }
     }
 }
@@ -1,8 +1,16 @@
 import java.awt.*;
 import javax.swing.*;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
 
 /**
  * A graphical view of the simulation grid.
@@ -10,11 +18,14 @@ import java.util.ArrayList;
  * representing its contents. It uses a default background color.
  * Colors for each type of species can be defined using the
  * setColor method.
+ * The field is drawn from snapshots on a rendering thread of its own,
+ * at most a set number of times a second, so that a fast simulation
+ * is not slowed down to the speed of the drawing.
  * 
  * @author David J. Barnes, Aryan Sanvee Vijayan, Alexander Sukhin and Michael Kölling
  * @version 18/02/2025
  */
-public class SimulatorView extends JFrame
+public class SimulatorView extends JFrame implements SimulationObserver
 {
     // Colors used for empty locations.
     private static final Color EMPTY_COLOR = Color.white;
@@ -22,6 +33,9 @@ public class SimulatorView extends JFrame
     // Color used for objects that have no defined color.
     private static final Color UNKNOWN_COLOR = Color.gray;
 
+    // The number of times a second the field is drawn at most.
+    private static final int DEFAULT_FRAME_RATE = 30;
+
     private final String STEP_PREFIX = "Step: ";
     private final String TIME_PREFIX = "Time: ";
     private final String WEATHER_PREFIX = "Weather: ";
@@ -32,8 +46,22 @@ public class SimulatorView extends JFrame
 
     // A map for storing colors for participants in the simulation
     private final Map<Class<?>, Color> colors;
+    // The packed RGB color of each location code in a FieldSnapshot,
+    // or null if it must be built again.
+    private volatile int[] palette;
     // A statistics object computing and storing simulation information
     private final FieldStats stats;
+    // The latest snapshot not yet drawn, or null if it has been.
+    private final AtomicReference<FieldSnapshot> pending;
+    // A snapshot the rendering thread has drawn and handed back, to be
+    // taken again, or null.
+    private final AtomicReference<FieldSnapshot> spare;
+    // The number of snapshots replaced before they were drawn.
+    private final AtomicLong droppedFrames;
+    // The thread that draws the snapshots.
+    private final Thread renderer;
+    // The shortest time between two frames, in nanoseconds.
+    private volatile long frameNanos;
 
     /**
      * Create a view of the given width and height.
@@ -43,7 +71,12 @@ public class SimulatorView extends JFrame
     public SimulatorView(int height, int width)
     {
         stats = new FieldStats();
-        colors = new LinkedHashMap<>();
+        // The colors are read on the rendering thread.
+        colors = new ConcurrentHashMap<>();
+        pending = new AtomicReference<>();
+        spare = new AtomicReference<>();
+        droppedFrames = new AtomicLong();
+        setFrameRate(DEFAULT_FRAME_RATE);
         setColor(Armadillo.class, Color.orange);
         setColor(Ocelot.class, Color.blue);
         setColor(Giraffe.class, Color.cyan);
@@ -67,6 +100,20 @@ public class SimulatorView extends JFrame
         contents.add(population, BorderLayout.SOUTH);
         pack();
         setVisible(true);
+
+        renderer = new Thread(this::renderFrames, "renderer");
+        renderer.setDaemon(true);
+        renderer.start();
+    }
+
+    /**
+     * Check whether a view can be shown, i.e. whether there is a
+     * display to show it on.
+     * @return true if a view can be created.
+     */
+    public static boolean isDisplayAvailable()
+    {
+        return !GraphicsEnvironment.isHeadless();
     }
 
     /**
@@ -77,6 +124,7 @@ public class SimulatorView extends JFrame
     public void setColor(Class<?> organismClass, Color color)
     {
         colors.put(organismClass, color);
+        palette = null;
     }
 
     /**
@@ -95,7 +143,14 @@ public class SimulatorView extends JFrame
     }
 
     /**
-     * Show the current status of the field.
+     * Show the current status of the field. A snapshot of the field is
+     * taken and handed to the rendering thread, which draws the latest
+     * snapshot it has been given at most frame rate times a second, so
+     * the simulation does not wait for the drawing. A snapshot that is
+     * replaced before it is drawn is dropped. Snapshots are taken again
+     * rather than allocated: the one not yet drawn is taken back, or
+     * else the one the rendering thread last handed back is used, so
+     * at most two exist.
      * @param step Which iteration step it is.
      * @param time The current day/night cycle.
      * @param field The field whose status is to be displayed.
@@ -103,68 +158,118 @@ public class SimulatorView extends JFrame
      */
     public void showStatus(int step, Time time, Field field, Weather weather)
     {
-        if(!isVisible()) {
-            setVisible(true);
+        // Only this thread hands snapshots to the rendering thread, so
+        // one taken back from it is not being drawn.
+        FieldSnapshot snapshot = pending.getAndSet(null);
+        if (snapshot != null) {
+            droppedFrames.incrementAndGet();
         }
+        else {
+            snapshot = spare.getAndSet(null);
+        }
+        if (snapshot == null) {
+            snapshot = new FieldSnapshot(step, time, weather, field);
+        }
+        else {
+            snapshot.retake(step, time, weather, field);
+        }
+        pending.set(snapshot);
+        LockSupport.unpark(renderer);
+    }
 
-        northLabel.setText(STEP_PREFIX + step + " " + TIME_PREFIX + time + " " + 
-            WEATHER_PREFIX + weather);
-
-        stats.reset();
-
-        fieldView.preparePaint();
-
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Animal animal = field.getAnimalAt(new Location(row, col));
-                Plant plant = field.getPlantAt(new Location(row, col));
-                Class<?> plantClass = null;
-
-                if (plant != null) {
+    /**
+     * Set how many times a second the field is drawn at most.
+     * @param framesPerSecond The frame rate, at least 1.
+     */
+    public void setFrameRate(int framesPerSecond)
+    {
+        frameNanos = 1_000_000_000L / Math.max(1, framesPerSecond);
+    }
 
-                    // Gets the class of the plant.
-                    plantClass = plant.getClass();
+    /**
+     * @return The number of snapshots replaced before they were drawn.
+     */
+    public long getDroppedFrames()
+    {
+        return droppedFrames.get();
+    }
 
-                    if (plantClass == LeafCell.class) {
-                        // If the class of the plant is a leaf cell,
-                        // changes colour of leaf cell depending on the
-                        // type of plant the parent of the leaf cell is.
-                        if (plant instanceof LeafCell leafCell) {
-                            Class<?> parentClass = leafCell.parentClass();
+    /**
+     * Stop the rendering thread along with the window.
+     */
+    @Override
+    public void dispose()
+    {
+        renderer.interrupt();
+        super.dispose();
+    }
 
-                            if (parentClass == BerryShrub.class) {
-                                // Draws green for berry shrub parents.
-                                fieldView.drawMark(col, row, Color.green);
-                            } else if (parentClass == Tree.class) {
-                                // Draws dark green for tree parents.
-                                fieldView.drawMark(col, row, new Color(0, 153, 51));
-                            }   
-                        }
-                    } else {
-                        fieldView.drawMark(col, row, getColor(plant.getClass()));
-                    }
+    /**
+     * Draw the latest snapshot, then wait for the next frame, until
+     * the view is disposed. Runs on the rendering thread; only the
+     * labels and the final copy to the screen are left to the Swing
+     * event thread.
+     */
+    private void renderFrames()
+    {
+        while (!Thread.currentThread().isInterrupted()) {
+            FieldSnapshot snapshot = pending.getAndSet(null);
+            if (snapshot == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            long start = System.nanoTime();
+            List<Rectangle> changed = fieldView.render(snapshot);
+            String status = STEP_PREFIX + snapshot.getStep() + " " + TIME_PREFIX
+                + snapshot.getTime() + " " + WEATHER_PREFIX + snapshot.getWeather();
+            String details = POPULATION_PREFIX + snapshot.getPopulation();
+            spare.set(snapshot);
+            SwingUtilities.invokeLater(() -> {
+                if(!isVisible()) {
+                    setVisible(true);
                 }
-
-                if(animal != null) {
-                    stats.incrementCount(animal.getClass());
-
-                    // Represents infected animals as slightly darker.
-                    if (animal.isInfected() == true) {
-                        fieldView.drawMark(col, row, getColor(animal.getClass()).darker());
-                    } else {
-                        fieldView.drawMark(col, row, getColor(animal.getClass()));
-                    }
+                northLabel.setText(status);
+                population.setText(details);
+                // Swing would merge repaint requests into one rectangle
+                // covering them all, so each area is painted at once.
+                for(Rectangle area : changed) {
+                    fieldView.paintImmediately(area);
                 }
-
-                if (plant == null && animal == null){
-                    fieldView.drawMark(col, row, EMPTY_COLOR);
+            });
+            long rest = frameNanos - (System.nanoTime() - start);
+            if (rest > 0) {
+                try {
+                    Thread.sleep(rest / 1_000_000, (int) (rest % 1_000_000));
+                }
+                catch(InterruptedException e) {
+                    return;
                 }
             }
         }
-        stats.countFinished();
+    }
 
-        population.setText(POPULATION_PREFIX + stats.getPopulationDetails(field));
-        fieldView.repaint();
+    /**
+     * Return the packed RGB color of every location code, building the
+     * palette again if a color has been set or a species registered
+     * since it was last built.
+     * @return The palette, indexed by location code.
+     */
+    private int[] getPalette()
+    {
+        int[] current = palette;
+        int species = Species.count();
+        if (current == null || current.length < FieldSnapshot.codeOf(species, false)) {
+            current = new int[FieldSnapshot.codeOf(species, false)];
+            Arrays.fill(current, EMPTY_COLOR.getRGB());
+            for (int index = 0; index < species; index++) {
+                Color color = getColor(Species.classOf(index));
+                current[FieldSnapshot.codeOf(index, false)] = color.getRGB();
+                // Represents infected animals as slightly darker.
+                current[FieldSnapshot.codeOf(index, true)] = color.darker().getRGB();
+            }
+            palette = current;
+        }
+        return current;
     }
 
     /**
@@ -187,12 +292,24 @@ public class SimulatorView extends JFrame
     private class FieldView extends JPanel
     {
         private final int GRID_VIEW_SCALING_FACTOR = 6;
+        // The number of rows and columns of the field in each tile.
+        // Each band of tiles, one tile high, is drawn in parallel.
+        private static final int TILE_SIZE = 16;
 
         private final int gridWidth, gridHeight;
         private int xScale, yScale;
         Dimension size;
-        private Graphics g;
-        private Image fieldImage;
+        // The image shown on screen, and the one the next frame is
+        // drawn into while it is shown. They swap after every frame.
+        private BufferedImage fieldImage, nextImage;
+        // The location codes drawn in each image, or null if the image
+        // is to be drawn in full. They swap along with the images.
+        private int[] fieldCodes, nextCodes;
+        // The palette the images were drawn with.
+        private int[] drawnPalette;
+        // Whether each tile differs from the image on screen, band
+        // after band.
+        private final boolean[] changedTiles;
 
         /**
          * Create a new FieldView component.
@@ -202,6 +319,8 @@ public class SimulatorView extends JFrame
             gridHeight = height;
             gridWidth = width;
             size = new Dimension(0, 0);
+            changedTiles = new boolean[((height + TILE_SIZE - 1) / TILE_SIZE)
+                                       * ((width + TILE_SIZE - 1) / TILE_SIZE)];
         }
 
         /**
@@ -213,17 +332,204 @@ public class SimulatorView extends JFrame
                 gridHeight * GRID_VIEW_SCALING_FACTOR);
         }
 
+        /**
+         * Draw a snapshot into the image that is not on screen, then
+         * put it on screen. Called on the rendering thread. The pixels
+         * of the image are written directly, in bands of tiles drawn
+         * in parallel. Only the tiles whose location codes differ from
+         * those already in the image are drawn again, and only the
+         * tiles that differ from the image on screen need repainting.
+         * @param snapshot The snapshot to draw.
+         * @return The areas of the component to repaint, which are
+         *         none if nothing on screen has changed.
+         */
+        public List<Rectangle> render(FieldSnapshot snapshot)
+        {
+            preparePaint();
+            int[] pixels = ((DataBufferInt) nextImage.getRaster().getDataBuffer()).getData();
+            int[] colors = getPalette();
+            if(colors != drawnPalette) {
+                drawnPalette = colors;
+                fieldCodes = null;
+                nextCodes = null;
+            }
+            int bands = (gridHeight + TILE_SIZE - 1) / TILE_SIZE;
+            List<Rectangle> changed;
+            if(nextCodes == null) {
+                int background = getBackground().getRGB();
+                IntStream.range(0, bands).parallel().forEach(band ->
+                    renderRows(snapshot, pixels, colors, background, band * TILE_SIZE,
+                               Math.min(gridHeight, (band + 1) * TILE_SIZE)));
+                // Clear whatever is below the last row of the field.
+                int bottom = Math.min(gridHeight * yScale, size.height);
+                Arrays.fill(pixels, bottom * size.width, size.height * size.width, background);
+                nextCodes = new int[gridHeight * gridWidth];
+                for(int row = 0; row < gridHeight; row++) {
+                    for(int col = 0; col < gridWidth; col++) {
+                        nextCodes[row * gridWidth + col] = snapshot.getCode(row, col);
+                    }
+                }
+                changed = List.of(new Rectangle(size));
+            }
+            else {
+                IntStream.range(0, bands).parallel().forEach(band ->
+                    renderTiles(snapshot, pixels, colors, band));
+                changed = changedAreas(bands);
+            }
+            synchronized(this) {
+                BufferedImage shown = fieldImage;
+                fieldImage = nextImage;
+                nextImage = shown;
+            }
+            int[] shownCodes = fieldCodes;
+            fieldCodes = nextCodes;
+            nextCodes = shownCodes;
+            return changed;
+        }
+
+        /**
+         * Draw the locations of one band of tiles that differ from
+         * what the image holds, and find the tiles that differ from
+         * the image on screen.
+         * @param snapshot The snapshot to draw.
+         * @param pixels The pixels of the image, row after row.
+         * @param colors The palette.
+         * @param band The number of the band.
+         */
+        private void renderTiles(FieldSnapshot snapshot, int[] pixels, int[] colors, int band)
+        {
+            int fromRow = band * TILE_SIZE;
+            int toRow = Math.min(gridHeight, fromRow + TILE_SIZE);
+            int tiles = (gridWidth + TILE_SIZE - 1) / TILE_SIZE;
+            int[] drawn = nextCodes;
+            int[] shown = fieldCodes;
+            for(int tile = 0; tile < tiles; tile++) {
+                int fromCol = tile * TILE_SIZE;
+                int toCol = Math.min(gridWidth, fromCol + TILE_SIZE);
+                // Until it has been on screen, the other image is all new.
+                boolean repaint = shown == null;
+                for(int row = fromRow; row < toRow; row++) {
+                    for(int col = fromCol; col < toCol; col++) {
+                        int index = row * gridWidth + col;
+                        int code = snapshot.getCode(row, col);
+                        if(code != drawn[index]) {
+                            drawn[index] = code;
+                            drawMark(pixels, col, row, colors[code]);
+                        }
+                        if(!repaint && code != shown[index]) {
+                            repaint = true;
+                        }
+                    }
+                }
+                changedTiles[band * tiles + tile] = repaint;
+            }
+        }
+
+        /**
+         * Paint one location of the field in a given color, leaving
+         * the lines of background around it as they are.
+         * @param pixels The pixels of the image, row after row.
+         * @param col The column of the location.
+         * @param row The row of the location.
+         * @param color The packed RGB color.
+         */
+        private void drawMark(int[] pixels, int col, int row, int color)
+        {
+            int left = col * xScale;
+            int top = row * yScale;
+            if(left >= size.width || top >= size.height) {
+                return;
+            }
+            int right = Math.min(left + (xScale > 1 ? xScale - 1 : 1), size.width);
+            int bottom = Math.min(top + (yScale > 1 ? yScale - 1 : 1), size.height);
+            for(int y = top; y < bottom; y++) {
+                Arrays.fill(pixels, y * size.width + left, y * size.width + right, color);
+            }
+        }
+
+        /**
+         * Return the areas of the component covering the changed tiles:
+         * one for each run of changed tiles next to each other in a band.
+         * @param bands The number of bands.
+         * @return The areas, which are none if no tile has changed.
+         */
+        private List<Rectangle> changedAreas(int bands)
+        {
+            List<Rectangle> areas = new ArrayList<>();
+            int tiles = (gridWidth + TILE_SIZE - 1) / TILE_SIZE;
+            for(int band = 0; band < bands; band++) {
+                int tile = 0;
+                while(tile < tiles) {
+                    if(!changedTiles[band * tiles + tile]) {
+                        tile++;
+                        continue;
+                    }
+                    int firstTile = tile;
+                    while(tile < tiles && changedTiles[band * tiles + tile]) {
+                        tile++;
+                    }
+                    areas.add(new Rectangle(firstTile * TILE_SIZE * xScale, band * TILE_SIZE * yScale,
+                                            (tile - firstTile) * TILE_SIZE * xScale,
+                                            TILE_SIZE * yScale));
+                }
+            }
+            return areas;
+        }
+
+        /**
+         * Draw some rows of the field. Each row is drawn once into a
+         * line of pixels, which is then copied for every pixel row the
+         * field row covers, leaving a line of background between rows
+         * and columns when they are wider than a pixel.
+         * @param snapshot The snapshot to draw.
+         * @param pixels The pixels of the image, row after row.
+         * @param colors The palette.
+         * @param background The packed RGB background color.
+         * @param fromRow The first row of the field to draw.
+         * @param toRow One past the last row of the field to draw.
+         */
+        private void renderRows(FieldSnapshot snapshot, int[] pixels, int[] colors,
+                                int background, int fromRow, int toRow)
+        {
+            int imageWidth = size.width;
+            int imageHeight = size.height;
+            int markWidth = xScale > 1 ? xScale - 1 : 1;
+            int markHeight = yScale > 1 ? yScale - 1 : 1;
+            int[] line = new int[imageWidth];
+            int[] gap = new int[imageWidth];
+            Arrays.fill(gap, background);
+            for(int row = fromRow; row < toRow; row++) {
+                int top = row * yScale;
+                if(top >= imageHeight) {
+                    return;
+                }
+                Arrays.fill(line, background);
+                for(int col = 0; col < gridWidth && col * xScale < imageWidth; col++) {
+                    int left = col * xScale;
+                    Arrays.fill(line, left, Math.min(left + markWidth, imageWidth),
+                                colors[snapshot.getCode(row, col)]);
+                }
+                int end = Math.min(top + yScale, imageHeight);
+                for(int y = top; y < end; y++) {
+                    System.arraycopy(y < top + markHeight ? line : gap, 0,
+                                     pixels, y * imageWidth, imageWidth);
+                }
+            }
+        }
+
         /**
          * Prepare for a new round of painting. Since the component
          * may be resized, compute the scaling factor again.
          */
-        public void preparePaint()
+        private void preparePaint()
         {
-            if(! size.equals(getSize())) {  // if the size has changed...
-                size = getSize();
-                fieldImage = fieldView.createImage(size.width, size.height);
-                g = fieldImage.getGraphics();
-
+            Dimension current = getSize();
+            if(current.width < 1 || current.height < 1) {
+                // Not laid out yet.
+                current = getPreferredSize();
+            }
+            if(! size.equals(current)) {  // if the size has changed...
+                size = current;
                 xScale = size.width / gridWidth;
                 if(xScale < 1) {
                     xScale = GRID_VIEW_SCALING_FACTOR;
@@ -233,15 +539,13 @@ public class SimulatorView extends JFrame
                     yScale = GRID_VIEW_SCALING_FACTOR;
                 }
             }
-        }
-
-        /**
-         * Paint on grid location on this field in a given color.
-         */
-        public void drawMark(int x, int y, Color color)
-        {
-            g.setColor(color);
-            g.fillRect(x * xScale, y * yScale, xScale-1, yScale-1);
+            // The image on screen keeps its size until it is replaced.
+            if(nextImage == null || nextImage.getWidth() != size.width
+                   || nextImage.getHeight() != size.height) {
+                nextImage = new BufferedImage(size.width, size.height,
+                                              BufferedImage.TYPE_INT_RGB);
+                nextCodes = null;
+            }
         }
 
         /**
@@ -250,14 +554,17 @@ public class SimulatorView extends JFrame
          */
         public void paintComponent(Graphics g)
         {
-            if(fieldImage != null) {
-                Dimension currentSize = getSize();
-                if(size.equals(currentSize)) {
-                    g.drawImage(fieldImage, 0, 0, null);
-                }
-                else {
-                    // Rescale the previous image.
-                    g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
+            synchronized(this) {
+                if(fieldImage != null) {
+                    Dimension currentSize = getSize();
+                    if(currentSize.width == fieldImage.getWidth()
+                           && currentSize.height == fieldImage.getHeight()) {
+                        g.drawImage(fieldImage, 0, 0, null);
+                    }
+                    else {
+                        // Rescale the previous image.
+                        g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
+                    }
                 }
             }
         }
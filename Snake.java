@@ -9,33 +9,24 @@ import java.util.*;
  */
 public class Snake extends Predator
 {
-    // Characteristics shared by all snakes (class variables).
-    // The age at which a snake can start to breed.
-    private static final int BREEDING_AGE = 15;
-    // The age to which a snake can live.
-    private static final int MAX_AGE = 250;
-    // The likelihood of a snake breeding.
-    private static final double BREEDING_PROBABILITY = 0.5;
-    // The maximum number of births.
-    private static final int MAX_LITTER_SIZE = 30;
-    // Snakes are mostly diurnal (active at day).
-    // The likelihood of a snake hunting at night.
-    private static final double NIGHT_HUNT_PROBABILITY = 0.5;
-    // The likelihood of a snake hunting at night.
-    private static final double DAY_HUNT_PROBABILITY = 0.9;
-
     /**
      * Create a snake. A snake can be created as a new born (age zero
      * and not hungry) or with a random age and food level.
      * 
      * @param randomAge If true, the snake will have random age and hunger level.
      * @param location The location within the field.
+     * @param id The identity of the snake.
+     * @param parameters The parameters of the run, which the snake's
+     *                   offspring inherit.
+     * @param randomEngine The generator behind the run's random streams,
+     *                     which the snake's offspring inherit.
      */
-    public Snake(boolean randomAge, Location location)
+    public Snake(boolean randomAge, Location location, long id, Parameters parameters,
+                 RandomEngine randomEngine)
     {
-        super(location, Armadillo.class);
+        super(location, id, parameters, randomEngine, Armadillo.class);
         if(randomAge) {
-            setAge(randInt(MAX_AGE));
+            setAge(randInt(getParameters().getInt(Parameter.SNAKE_MAX_AGE)));
         }
         else {
             setAge(0);
@@ -53,13 +44,12 @@ public class Snake extends Predator
     }
 
     /**
-     * Check if the snake is too old to live.
+     * Return the age to which the snake can live.
+     * @return The maximum age.
      */
-    protected void checkIfTooOld()
+    protected int maxAge()
     {
-        if(getAge() > MAX_AGE) {
-            setDead();
-        }
+        return getParameters().getInt(Parameter.SNAKE_MAX_AGE);
     }
 
     /**
@@ -82,16 +72,18 @@ public class Snake extends Predator
      */
     protected boolean breedSuccess()
     {
-        return getAge() >= BREEDING_AGE && randDouble() <= BREEDING_PROBABILITY;
+        return getAge() >= getParameters().getInt(Parameter.SNAKE_BREEDING_AGE)
+               && randDouble() <= getParameters().get(Parameter.SNAKE_BREEDING_PROBABILITY);
     }
 
     /**
      * Create a new snake as offspring.
      * @param loc The location off the new offspring.
+     * @param id The identity of the offspring.
      * @return The offspring.
      */
-    protected Animal offspring(Location loc) {
-        Snake young = new Snake(false,loc);
+    protected Animal offspring(Location loc, long id) {
+        Snake young = new Snake(false, loc, id, getParameters(), getRandomEngine());
         return young;
     }
 
@@ -100,7 +92,7 @@ public class Snake extends Predator
      * @return Number of offspring.
      */
     protected int birthNumber() {
-        return randInt(MAX_LITTER_SIZE) + 1;
+        return randInt(getParameters().getInt(Parameter.SNAKE_MAX_LITTER_SIZE)) + 1;
     }
 
     /**
@@ -110,10 +102,10 @@ public class Snake extends Predator
      */
     public boolean huntSuccess(Time time) {
         if (time == Time.NIGHT) {
-            return randDouble() <= NIGHT_HUNT_PROBABILITY;
+            return randDouble() <= getParameters().get(Parameter.SNAKE_NIGHT_HUNT_PROBABILITY);
         } 
         else {
-            return randDouble() <= DAY_HUNT_PROBABILITY;
+            return randDouble() <= getParameters().get(Parameter.SNAKE_DAY_HUNT_PROBABILITY);
         }
     }
 }
@@ -0,0 +1,69 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Give every class of organism in the simulation a small number, in
+ * the order in which the classes are first seen. The numbers let the
+ * field keep per-species data in plain arrays instead of maps keyed
+ * by class.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class Species
+{
+    // The number of each class, looked up without locking once known.
+    private static final ClassValue<Integer> numbers = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type)
+        {
+            return register(type);
+        }
+    };
+    // The registered classes, in order of their numbers.
+    private static final List<Class<?>> classes = new ArrayList<>();
+
+    /**
+     * Return the number of a class of organism, registering the
+     * class if it has not been seen before.
+     * @param organismClass The class of organism.
+     * @return The number of the class.
+     */
+    public static int indexOf(Class<?> organismClass)
+    {
+        return numbers.get(organismClass);
+    }
+
+    /**
+     * Return the class with the given number.
+     * @param index The number of the class.
+     * @return The class of organism.
+     */
+    public static synchronized Class<?> classOf(int index)
+    {
+        return classes.get(index);
+    }
+
+    /**
+     * @return The number of classes registered so far.
+     */
+    public static synchronized int count()
+    {
+        return classes.size();
+    }
+
+    /**
+     * Give a class the next free number, unless it already has one.
+     * @param organismClass The class to register.
+     * @return The number of the class.
+     */
+    private static synchronized int register(Class<?> organismClass)
+    {
+        int index = classes.indexOf(organismClass);
+        if(index < 0) {
+            index = classes.size();
+            classes.add(organismClass);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * The SplitMix64 generator as a random stream. The n-th value of a
+ * stream is the SplitMix64 hash of key + n * GAMMA, so any value can
+ * be computed directly from the key and n; this makes it the cheapest
+ * stream to restart. It is the generator used unless a run is given
+ * another RandomEngine.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+@SuppressWarnings("serial")
+public class SplitMix64 extends RandomStream
+{
+    // The key the stream was started at.
+    private long key;
+    // The number of values drawn since the stream was started.
+    private long counter;
+
+    @Override
+    protected void start(long key)
+    {
+        this.key = key;
+        counter = 0;
+    }
+
+    @Override
+    public long nextLong()
+    {
+        counter++;
+        return mix(key + counter * GAMMA);
+    }
+
+    /**
+     * Fill part of an array with random doubles. Each value depends
+     * only on the key and its position, so the loop carries no
+     * dependency from one value to the next.
+     * @param values The array to fill.
+     * @param from The first index to fill.
+     * @param to One past the last index to fill.
+     */
+    @Override
+    public void fillDoubles(double[] values, int from, int to)
+    {
+        long first = key + (counter + 1) * GAMMA;
+        for (int i = from; i < to; i++) {
+            values[i] = (mix(first + (i - from) * GAMMA) >>> 11) * 0x1.0p-53;
+        }
+        counter += Math.max(0, to - from);
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * The conditions of one simulation step, handed to every animal as it acts.
+ *
+ * @param step The number of the step being simulated.
+ * @param time The current day/night cycle.
+ * @param weather The current weather conditions.
+ * @param infectionModel How infection spreads during this step.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public record StepContext(int step, Time time, Weather weather, InfectionModel infectionModel)
+{
+}
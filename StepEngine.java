@@ -0,0 +1,22 @@
+/**
+ * A way of running the animals of one step of the simulation: every
+ * animal in the current field acts, building the animal layer of the
+ * next field state. Engines differ only in how the work is scheduled.
+ * The plants grow in a PlantStage of their own, which may run at the
+ * same time.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public interface StepEngine
+{
+    /**
+     * Let every animal in the current field act once.
+     * @param currentField The current state of the field. Animals
+     *                     read it but do not change it, apart from
+     *                     marking the leaves they eat.
+     * @param nextFieldState The empty field in which the next state is built.
+     * @param context The step number, time, weather and infection model.
+     */
+    void step(Field currentField, Field nextFieldState, StepContext context);
+}
@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Run one simulation split across several processes on this machine.
+ * The field is cut into strips of whole rows, each owned by a
+ * StripWorker process; the coordinator starts the workers, tells each
+ * its strip and its neighbours, and adds up the populations they
+ * report after every step. Run it from the command line as
+ *
+ *     java StripCoordinator run [workers depth width steps]
+ *
+ * which prints the population of the whole field every 50 steps and
+ * the steps per second, or
+ *
+ *     java StripCoordinator scaling [rows width steps]
+ *
+ * which measures weak scaling: 1, 2, 4, ... workers up to the number
+ * of processors, each owning the given number of rows, so that the
+ * work per worker stays the same. Ideally the steps per second do not
+ * change as workers are added.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class StripCoordinator
+{
+    // The settings used unless others are given on the command line.
+    private static final int DEFAULT_DEPTH = 400;
+    private static final int DEFAULT_WIDTH = 600;
+    private static final int DEFAULT_ROWS = 100;
+    private static final int DEFAULT_STEPS = 200;
+    // The number of steps between printed populations.
+    private static final int PRINT_INTERVAL = 50;
+
+    /**
+     * Run a distributed simulation or the weak scaling benchmark.
+     * @param args The mode, followed by its settings.
+     * @throws IOException If the workers cannot be started or reached.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String mode = args.length > 0 ? args[0] : "run";
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (mode.equals("run")) {
+            int workers = args.length > 1 ? Integer.parseInt(args[1]) : processors;
+            int depth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DEPTH;
+            int width = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_WIDTH;
+            int steps = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_STEPS;
+            double rate = run(workers, depth, width, steps, true);
+            System.out.printf("%.1f steps/sec%n", rate);
+        }
+        else if (mode.equals("scaling")) {
+            int rows = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROWS;
+            int width = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_WIDTH;
+            int steps = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_STEPS;
+            scaling(rows, width, steps);
+        }
+        else {
+            System.out.println("Unknown mode: " + mode);
+            System.out.println("Usage: java StripCoordinator run [workers depth width steps]");
+            System.out.println("       java StripCoordinator scaling [rows width steps]");
+        }
+    }
+
+    /**
+     * Print the steps per second with 1, 2, 4, ... workers up to the
+     * number of processors, each owning the same number of rows, and
+     * the efficiency against one worker.
+     * @param rows The number of rows owned by each worker.
+     * @param width The width of the field.
+     * @param steps The number of steps in each run.
+     * @throws IOException If the workers cannot be started or reached.
+     */
+    private static void scaling(int rows, int width, int steps) throws IOException
+    {
+        System.out.println(rows + " rows of " + width + " per worker, " + steps + " steps per run");
+        System.out.printf("%8s %8s %12s %10s%n", "workers", "depth", "steps/sec", "efficiency");
+        double single = 0;
+        for (int workers : workerCounts()) {
+            double rate = run(workers, rows * workers, width, steps, false);
+            if (workers == 1) {
+                single = rate;
+            }
+            System.out.printf("%8d %8d %12.1f %10.2f%n", workers, rows * workers, rate, rate / single);
+        }
+    }
+
+    /**
+     * Run a simulation on several worker processes.
+     * @param workers The number of workers.
+     * @param depth The depth of the whole field.
+     * @param width The width of the whole field.
+     * @param steps The number of steps to run.
+     * @param print Whether to print the population as the run goes.
+     * @return The steps run per second.
+     * @throws IOException If the workers cannot be started or reached.
+     */
+    public static double run(int workers, int depth, int width, int steps, boolean print)
+        throws IOException
+    {
+        if (depth / workers < StripWorker.HALO) {
+            System.out.println("Each worker needs at least " + StripWorker.HALO + " rows.");
+            System.out.println("Using fewer workers.");
+            workers = Math.max(1, depth / StripWorker.HALO);
+        }
+        long seed = Randomizer.getSeed();
+        InetAddress localhost = InetAddress.getLoopbackAddress();
+        List<Process> processes = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, workers, localhost)) {
+            for (int i = 0; i < workers; i++) {
+                processes.add(new ProcessBuilder(
+                    Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"),
+                    "StripWorker", String.valueOf(server.getLocalPort())).inheritIO().start());
+            }
+            // Workers own strips in the order they connect.
+            StripWorker.Link[] links = new StripWorker.Link[workers];
+            for (int i = 0; i < workers; i++) {
+                links[i] = new StripWorker.Link(server.accept());
+                links[i].out.writeInt(steps);
+                links[i].out.writeLong(seed);
+                links[i].out.writeInt(width);
+                links[i].out.writeInt((int) ((long) depth * i / workers));
+                links[i].out.writeInt((int) ((long) depth * (i + 1) / workers));
+                links[i].out.writeInt(i);
+                links[i].out.flush();
+            }
+            int[] ports = new int[workers];
+            for (int i = 0; i < workers; i++) {
+                ports[i] = links[i].in.readInt();
+            }
+            for (int i = 0; i < workers; i++) {
+                links[i].out.writeInt(i + 1 < workers ? ports[i + 1] : -1);
+                links[i].out.flush();
+            }
+
+            long start = System.nanoTime();
+            for (int step = 0; step <= steps; step++) {
+                Population total = sum(links);
+                if (print && (step % PRINT_INTERVAL == 0 || step == steps)) {
+                    System.out.println(step + " " + total);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            for (Process process : processes) {
+                process.waitFor();
+            }
+            return steps / (elapsed / 1e9);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the workers", e);
+        }
+        finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+    }
+
+    /**
+     * Read one population from every worker and add them up.
+     * @param links The links to the workers.
+     * @return The population of the whole field.
+     * @throws IOException If a worker cannot be reached.
+     */
+    private static Population sum(StripWorker.Link[] links) throws IOException
+    {
+        Map<Class<?>, Integer> counts = new LinkedHashMap<>();
+        int infected = 0;
+        int leaves = 0;
+        for (StripWorker.Link link : links) {
+            Population population = StripWorker.readPopulation(link.in);
+            population.animalCounts().forEach((species, count) -> counts.merge(species, count, Integer::sum));
+            infected += population.infected();
+            leaves += population.leaves();
+        }
+        return new Population(counts, infected, leaves);
+    }
+
+    /**
+     * @return 1, 2, 4, ... up to the number of processors, which is
+     *         included even if it is not a power of two.
+     */
+    private static List<Integer> workerCounts()
+    {
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int workers = 1; workers < processors; workers *= 2) {
+            counts.add(workers);
+        }
+        counts.add(processors);
+        return counts;
+    }
+}
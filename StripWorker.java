@@ -0,0 +1,764 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One process of a distributed simulation, which owns a strip of whole
+ * rows of a field too large for one process. Workers are started by a
+ * StripCoordinator, which tells each its strip, and talk to the
+ * workers owning the strips above and below over localhost sockets.
+ *
+ * A worker's field holds its own rows plus, towards each neighbour, a
+ * halo of HALO rows: as far as an animal reads or changes cells from
+ * its own. Each step runs in three parts:
+ *
+ * 1. Halo exchange. Each worker sends the organisms of its outer HALO
+ *    rows to the neighbour on that side, which places copies of them
+ *    ("ghosts") in its halo. Ghosts are seen by the animals next to
+ *    them, so that they can mate with them, hunt them or be kept out
+ *    of their cells, but they do not act. Before the ghosts arrive,
+ *    the worker's plants grow in a PlantStage, as in a single
+ *    process, and are carried into the next field state, so the ghost
+ *    plants are neither carried nor woken.
+ * 2. The worker's own animals act, as in the sequential engine.
+ * 3. Notice exchange, in turn with the animals acting, as set out
+ *    below. Animals that moved or were born into a halo migrate to
+ *    the neighbour that owns it, and each neighbour is told which
+ *    animals within HALO rows of the cut were killed and which leaves
+ *    there were eaten, which it applies to its own organisms and to
+ *    its ghosts.
+ *
+ * Finally the worker reports its population to the coordinator.
+ *
+ * At each cut the worker above leads and the worker below follows: a
+ * step runs as in a single process in which, near a cut, the animals
+ * above act before those below. In one process the animals act in
+ * the order in which they were placed, which starts as reading order
+ * and stays close to it, so this is also the order they would mostly
+ * act in there; letting the sides take turns instead changes the
+ * populations noticeably. A worker first lets its animals within
+ * EDGE rows of the cut below act, and sends the worker below its
+ * notices, along with its animals of the HALO rows next to the cut
+ * as they are in the next field state. Its animals away from the
+ * cuts act next, since nothing its neighbours do can reach them. It
+ * then applies the notices of the worker above before its animals
+ * near that cut act: a prey taken by the neighbour's predator dies
+ * before it acts, the migrants take their cells before its own
+ * animals choose theirs, and the neighbour's animals in the next
+ * field state keep its animals out of their cells. Its own notices
+ * go back to the worker above, which applies them last; a migrant
+ * then takes its cell from any animal there, as an animal acting
+ * later in one process would. In a strip of fewer than 2 * EDGE
+ * rows the animals near the cut above may reach the cut below, so
+ * the notices for the worker below wait until they have acted, and
+ * the workers' steps run one after another rather than together.
+ *
+ * A message may be larger than the socket buffers, so a worker cannot
+ * write to its neighbours and only then read from them: on a wide
+ * field every worker would wait for its neighbours to read. Instead,
+ * in the halo exchange the workers owning even-numbered strips write
+ * first and then read, while those owning odd-numbered strips read
+ * first and then write. The notices are written before they are read
+ * on both sides of a cut.
+ *
+ * A distributed run follows the same rules as a single process, but
+ * its animals near the cuts act in another order, so its results
+ * match one process's only on average over seeds. A few differences
+ * remain near the cuts: plants do not grow leaves into a
+ * neighbour's strip, and a prey that has already acted when the
+ * predator of the worker below kills it still keeps that worker's
+ * later animals out of its new cell. The starting field is the same
+ * as in one process with the same seed.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class StripWorker
+{
+    // The number of rows next to its own that a worker must see: the
+    // radius within which animals find mates.
+    static final int HALO = 2;
+    // The number of rows next to a cut whose animals may be reached, in
+    // the same step, by what the animals across the cut do: those that
+    // may be killed or find their cells taken, and those that may move
+    // into, give birth into, or look for mates in the rows they change.
+    private static final int EDGE = HALO + 2;
+    // The sizes of the socket buffers, large enough that most steps'
+    // messages need not wait for the neighbour to read them.
+    private static final int BUFFER_SIZE = 1 << 20;
+    // The code of each kind of plant in a halo message.
+    private static final byte NO_PLANT = 0;
+    private static final byte BERRY_SHRUB = 1;
+    private static final byte TREE = 2;
+    private static final byte BERRY_SHRUB_LEAF = 3;
+    private static final byte TREE_LEAF = 4;
+    // The species that can be sent between workers, by code.
+    private static final List<Class<?>> SPECIES =
+        List.of(Giraffe.class, Lion.class, Snake.class, Ocelot.class, Armadillo.class);
+
+    // The number of steps to run and the seed of the run.
+    private final int steps;
+    private final long seed;
+    // Whether the worker writes to its neighbours before reading from
+    // them in an exchange, which is so for the even-numbered strips.
+    private final boolean writesFirst;
+    // The row of the whole field that row 0 of this worker's field stands for.
+    private final int rowOffset;
+    // The rows of this worker's field that it owns, from firstRow up
+    // to but not including endRow; the rows before and after are halos.
+    private final int firstRow, endRow;
+    // The current state of the worker's field and the field in which
+    // the next state is built.
+    private Field field;
+    private Field nextFieldState;
+    // The links to the workers above and below, if there are any.
+    private final Link up, down;
+    // The link to the coordinator.
+    private final Link coordinator;
+    // The ghosts placed in the halos in this step, by id.
+    private final Map<Long, Animal> ghosts;
+    // The worker's own animals within EDGE rows of the cut above, those
+    // within EDGE rows of the cut below but not of the one above, and
+    // the rest.
+    private final List<Animal> nearTop, nearBottom, awayFromCuts;
+    // Whether the animals near the cut above may reach the cut below,
+    // in a strip of fewer than 2 * EDGE rows.
+    private final boolean shortStrip;
+    // The copies of a leading neighbour's animals placed in the halos
+    // of the next field state in this step.
+    private final List<Animal> nextGhosts;
+    // Grows the worker's own plants.
+    private final PlantStage plants;
+
+    /**
+     * Create a worker for one strip.
+     * @param steps The number of steps to run.
+     * @param seed The seed of the run.
+     * @param strip The number of the worker's strip, counting from 0 at the top.
+     * @param width The width of the whole field.
+     * @param fromRow The first row of the whole field owned by the worker.
+     * @param toRow One past the last row owned by the worker.
+     * @param up The link to the worker owning the rows above, or null.
+     * @param down The link to the worker owning the rows below, or null.
+     * @param coordinator The link to the coordinator.
+     */
+    private StripWorker(int steps, long seed, int strip, int width, int fromRow, int toRow,
+                        Link up, Link down, Link coordinator)
+    {
+        this.steps = steps;
+        this.seed = seed;
+        writesFirst = strip % 2 == 0;
+        this.up = up;
+        this.down = down;
+        this.coordinator = coordinator;
+        int above = up != null ? HALO : 0;
+        int below = down != null ? HALO : 0;
+        rowOffset = fromRow - above;
+        firstRow = above;
+        endRow = above + toRow - fromRow;
+        field = new Field(endRow + below, width);
+        nextFieldState = new Field(endRow + below, width);
+        ghosts = new HashMap<>();
+        nearTop = new ArrayList<>();
+        nearBottom = new ArrayList<>();
+        awayFromCuts = new ArrayList<>();
+        shortStrip = up != null && down != null && endRow - firstRow < 2 * EDGE;
+        nextGhosts = new ArrayList<>();
+        plants = new PlantStage();
+    }
+
+    /**
+     * Connect to the coordinator and the neighbours, then run.
+     * @param args The port on which the coordinator listens.
+     * @throws IOException If a connection fails.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        InetAddress localhost = InetAddress.getLoopbackAddress();
+        Link coordinator = new Link(new Socket(localhost, Integer.parseInt(args[0])));
+        int steps = coordinator.in.readInt();
+        long seed = coordinator.in.readLong();
+        int width = coordinator.in.readInt();
+        int fromRow = coordinator.in.readInt();
+        int toRow = coordinator.in.readInt();
+        int strip = coordinator.in.readInt();
+        boolean hasUp = strip > 0;
+
+        // Listen for the worker above, tell the coordinator where,
+        // and learn where the worker below listens.
+        try (ServerSocket server = new ServerSocket(0, 1, localhost)) {
+            coordinator.out.writeInt(server.getLocalPort());
+            coordinator.out.flush();
+            int downPort = coordinator.in.readInt();
+            Link down = downPort >= 0 ? new Link(new Socket(localhost, downPort)) : null;
+            Link up = hasUp ? new Link(server.accept()) : null;
+            new StripWorker(steps, seed, strip, width, fromRow, toRow, up, down, coordinator)
+                .run();
+        }
+    }
+
+    /**
+     * Run every step, reporting the population after each.
+     * @throws IOException If a neighbour or the coordinator cannot be reached.
+     */
+    private void run() throws IOException
+    {
+        Simulator.populate(field, seed, Parameters.DEFAULTS, RandomEngine.DEFAULT,
+                           firstRow, endRow, rowOffset);
+        Time time = Time.DAY;
+        Weather weather = Weather.CLEAR;
+        report();
+        for (int step = 1; step <= steps; step++) {
+            field.clearRows(0, firstRow);
+            field.clearRows(endRow, field.getDepth());
+            nextFieldState.clear();
+            // The stage grows the plants on this thread, so they are
+            // done before the ghosts are placed.
+            plants.start(field, nextFieldState, time);
+            exchangeHalos();
+            StepContext context = new StepContext(step, time, weather, InfectionModel.PER_ANIMAL);
+            sortAnimals();
+            act(nearBottom, context);
+            if (!shortStrip) {
+                sendNotices(down, endRow, field.getDepth(), endRow - HALO, endRow, true);
+            }
+            act(awayFromCuts, context);
+            receiveNotices(up, true);
+            act(nearTop, context);
+            if (shortStrip) {
+                sendNotices(down, endRow, field.getDepth(), endRow - HALO, endRow, true);
+            }
+            sendNotices(up, 0, firstRow, firstRow, firstRow + HALO, false);
+            receiveNotices(down, false);
+            finishStep();
+
+            Field oldState = field;
+            field = nextFieldState;
+            nextFieldState = oldState;
+            if (step % Simulator.DAY_STEPS == 0) {
+                time = (time == Time.DAY) ? Time.NIGHT : Time.DAY;
+            }
+            if (step % Simulator.WEATHER_STEPS == 0) {
+                weather = Weather.randomWeather(Simulator.weatherStream(RandomEngine.DEFAULT, seed, step));
+            }
+            report();
+        }
+    }
+
+    /**
+     * Send the outer rows to each neighbour, and fill the emptied
+     * halos with ghosts of the neighbours' outer rows.
+     * @throws IOException If a neighbour cannot be reached.
+     */
+    private void exchangeHalos() throws IOException
+    {
+        ghosts.clear();
+        if (writesFirst) {
+            sendHalos();
+            receiveHalos();
+        }
+        else {
+            receiveHalos();
+            sendHalos();
+        }
+    }
+
+    /**
+     * Send the outer rows to each neighbour.
+     * @throws IOException If a neighbour cannot be reached.
+     */
+    private void sendHalos() throws IOException
+    {
+        if (up != null) {
+            writeRows(up.out, firstRow, firstRow + HALO);
+        }
+        if (down != null) {
+            writeRows(down.out, endRow - HALO, endRow);
+        }
+    }
+
+    /**
+     * Fill the halos with ghosts of the neighbours' outer rows.
+     * @throws IOException If a neighbour cannot be reached.
+     */
+    private void receiveHalos() throws IOException
+    {
+        if (up != null) {
+            readGhosts(up.in, 0);
+        }
+        if (down != null) {
+            readGhosts(down.in, endRow);
+        }
+    }
+
+    /**
+     * Sort the worker's own living animals by how near they are to the
+     * cuts, keeping their order.
+     */
+    private void sortAnimals()
+    {
+        nearTop.clear();
+        nearBottom.clear();
+        awayFromCuts.clear();
+        for (Animal anAnimal : field.getAnimals()) {
+            // Animals killed in an earlier step have no location.
+            if (anAnimal.isAlive() && owns(anAnimal.getLocation())) {
+                int row = anAnimal.getLocation().row();
+                if (up != null && row < firstRow + EDGE) {
+                    nearTop.add(anAnimal);
+                }
+                else if (down != null && row >= endRow - EDGE) {
+                    nearBottom.add(anAnimal);
+                }
+                else {
+                    awayFromCuts.add(anAnimal);
+                }
+            }
+        }
+    }
+
+    /**
+     * Let some of the worker's animals act.
+     * @param animals The animals, in the order in which they act.
+     * @param context The conditions of this step.
+     */
+    private void act(List<Animal> animals, StepContext context)
+    {
+        for (Animal anAnimal : animals) {
+            // Animals killed earlier in the step do not act.
+            if (anAnimal.isAlive()) {
+                anAnimal.act(field, nextFieldState, context);
+            }
+        }
+    }
+
+    /**
+     * Send a neighbour the notices for the cut between them.
+     * @param neighbour The link to the neighbour, or null if there is none.
+     * @param haloFrom The first row of the halo across the cut.
+     * @param haloTo One past the last row of the halo.
+     * @param ownFrom The first of the worker's own rows next to the cut.
+     * @param ownTo One past the last of those rows.
+     * @param leading Whether the worker leads at the cut.
+     * @throws IOException If the neighbour cannot be reached.
+     */
+    private void sendNotices(Link neighbour, int haloFrom, int haloTo,
+                             int ownFrom, int ownTo, boolean leading) throws IOException
+    {
+        if (neighbour != null) {
+            writeNotices(neighbour.out, haloFrom, haloTo, ownFrom, ownTo, leading);
+        }
+    }
+
+    /**
+     * Apply the notices a neighbour sends.
+     * @param neighbour The link to the neighbour, or null if there is none.
+     * @param fromLeader Whether the neighbour leads at the cut.
+     * @throws IOException If the neighbour cannot be reached.
+     */
+    private void receiveNotices(Link neighbour, boolean fromLeader) throws IOException
+    {
+        if (neighbour != null) {
+            readNotices(neighbour.in, fromLeader);
+        }
+    }
+
+    /**
+     * Finish the plants of the step and empty the halos of the next
+     * field state, so that it holds only the worker's own rows.
+     */
+    private void finishStep()
+    {
+        plants.finish(field, nextFieldState);
+
+        // Leaves grown into a halo belong to no one; take them off
+        // their plants before emptying the halos.
+        for (int row : haloRows()) {
+            for (int col = 0; col < field.getWidth(); col++) {
+                if (nextFieldState.getPlantAt(row, col) instanceof LeafCell leafCell) {
+                    leafCell.removeLeaf();
+                }
+            }
+        }
+        nextFieldState.clearRows(0, firstRow);
+        nextFieldState.clearRows(endRow, nextFieldState.getDepth());
+        nextGhosts.clear();
+    }
+
+    /**
+     * Write the organisms of some of the worker's own rows, as a halo
+     * for a neighbour.
+     * @param out Where to write them.
+     * @param fromRow The first row to write.
+     * @param toRow One past the last row to write.
+     * @throws IOException If they cannot be written.
+     */
+    private void writeRows(DataOutputStream out, int fromRow, int toRow) throws IOException
+    {
+        List<Animal> animals = new ArrayList<>();
+        for (int row = fromRow; row < toRow; row++) {
+            for (int col = 0; col < field.getWidth(); col++) {
+                out.writeByte(plantCode(field.getPlantAt(row, col)));
+                Animal anAnimal = field.getAnimalAt(row, col);
+                if (anAnimal != null && anAnimal.isAlive()) {
+                    animals.add(anAnimal);
+                }
+            }
+        }
+        writeAnimals(out, animals);
+        out.flush();
+    }
+
+    /**
+     * Read a neighbour's outer rows into a halo as ghosts.
+     * @param in Where to read them from.
+     * @param fromRow The first row of the halo.
+     * @throws IOException If they cannot be read.
+     */
+    private void readGhosts(DataInputStream in, int fromRow) throws IOException
+    {
+        for (int row = fromRow; row < fromRow + HALO; row++) {
+            for (int col = 0; col < field.getWidth(); col++) {
+                Plant ghost = ghostPlant(in.readByte(), new Location(row, col));
+                if (ghost != null) {
+                    field.placePlant(ghost, ghost.getLocation());
+                }
+            }
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Animal ghost = readAnimal(in);
+            field.placeAnimal(ghost, ghost.getLocation());
+            ghosts.put(ghost.getId(), ghost);
+        }
+    }
+
+    /**
+     * Write the notices for the neighbour across a cut: the animals
+     * that moved or were born into its rows, and the animals killed
+     * and leaves eaten within HALO rows of the cut. A leading worker
+     * also writes its animals of those rows in the next field state.
+     * @param out Where to write them.
+     * @param haloFrom The first row of the halo across the cut.
+     * @param haloTo One past the last row of the halo.
+     * @param ownFrom The first of the worker's own rows next to the cut.
+     * @param ownTo One past the last of those rows.
+     * @param leading Whether the worker leads at the cut.
+     * @throws IOException If they cannot be written.
+     */
+    private void writeNotices(DataOutputStream out, int haloFrom, int haloTo,
+                              int ownFrom, int ownTo, boolean leading) throws IOException
+    {
+        List<Location> killed = new ArrayList<>();
+        List<Location> eaten = new ArrayList<>();
+        for (int row = Math.min(haloFrom, ownFrom); row < Math.max(haloTo, ownTo); row++) {
+            for (int col = 0; col < field.getWidth(); col++) {
+                Location location = new Location(row, col);
+                Animal anAnimal = field.getAnimalAt(location);
+                if (anAnimal != null && !anAnimal.isAlive()) {
+                    killed.add(location);
+                }
+                if (field.getPlantAt(location) instanceof LeafCell && field.isLeafEaten(location)) {
+                    eaten.add(location);
+                }
+            }
+        }
+        out.writeInt(killed.size());
+        for (Location location : killed) {
+            writeLocation(out, location);
+            out.writeLong(field.getAnimalAt(location).getId());
+        }
+        out.writeInt(eaten.size());
+        for (Location location : eaten) {
+            writeLocation(out, location);
+        }
+
+        writeAnimals(out, nextAnimals(haloFrom, haloTo));
+        if (leading) {
+            writeAnimals(out, nextAnimals(ownFrom, ownTo));
+        }
+        out.flush();
+    }
+
+    /**
+     * @param fromRow The first row to look in.
+     * @param toRow One past the last row to look in.
+     * @return The worker's living animals in some rows of the next field state.
+     */
+    private List<Animal> nextAnimals(int fromRow, int toRow)
+    {
+        List<Animal> animals = new ArrayList<>();
+        for (int row = fromRow; row < toRow; row++) {
+            for (int col = 0; col < field.getWidth(); col++) {
+                Animal anAnimal = nextFieldState.getAnimalAt(row, col);
+                if (anAnimal != null && anAnimal.isAlive() && !nextGhosts.contains(anAnimal)) {
+                    animals.add(anAnimal);
+                }
+            }
+        }
+        return animals;
+    }
+
+    /**
+     * Apply the notices of a neighbour: kill the animals it killed,
+     * whether the worker's own or ghosts, mark the leaves it ate and
+     * place the migrants that arrived. The notices of a leading
+     * neighbour also place copies of its animals next to the cut in
+     * the halo of the next field state.
+     * @param in Where to read the notices from.
+     * @param fromLeader Whether the neighbour leads at the cut.
+     * @throws IOException If they cannot be read.
+     */
+    private void readNotices(DataInputStream in, boolean fromLeader) throws IOException
+    {
+        // Kill first, so that a predator that took its prey's cell in
+        // the next field state is placed over it.
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Location location = readLocation(in);
+            long id = in.readLong();
+            Animal anAnimal = field.getAnimalAt(location);
+            if (anAnimal != null && anAnimal.isAlive() && anAnimal.getId() == id) {
+                nextFieldState.killAnimal(anAnimal);
+            }
+        }
+
+        count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Location location = readLocation(in);
+            if (field.getPlantAt(location) instanceof LeafCell && !field.isLeafEaten(location)) {
+                field.eatLeaf(location);
+            }
+        }
+
+        count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Animal migrant = readAnimal(in);
+            nextFieldState.placeAnimal(migrant, migrant.getLocation());
+        }
+
+        if (fromLeader) {
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Animal ghost = readAnimal(in);
+                nextFieldState.placeAnimal(ghost, ghost.getLocation());
+                nextGhosts.add(ghost);
+            }
+        }
+    }
+
+    /**
+     * Report the population of the worker's rows to the coordinator.
+     * @throws IOException If the coordinator cannot be reached.
+     */
+    private void report() throws IOException
+    {
+        writePopulation(coordinator.out, field.getPopulation());
+        coordinator.out.flush();
+    }
+
+    /**
+     * @param location A location in the worker's field.
+     * @return Whether the worker owns the location.
+     */
+    private boolean owns(Location location)
+    {
+        return location.row() >= firstRow && location.row() < endRow;
+    }
+
+    /**
+     * @return The rows of the worker's field that are halos.
+     */
+    private int[] haloRows()
+    {
+        int[] rows = new int[firstRow + field.getDepth() - endRow];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i < firstRow ? i : endRow + i - firstRow;
+        }
+        return rows;
+    }
+
+    /**
+     * Write some animals with their locations in the whole field.
+     * @param out Where to write them.
+     * @param animals The animals.
+     * @throws IOException If they cannot be written.
+     */
+    private void writeAnimals(DataOutput out, List<Animal> animals) throws IOException
+    {
+        out.writeInt(animals.size());
+        for (Animal anAnimal : animals) {
+            out.writeByte(SPECIES.indexOf(anAnimal.getClass()));
+            writeLocation(out, anAnimal.getLocation());
+            out.writeLong(anAnimal.getId());
+            anAnimal.writeState(out);
+        }
+    }
+
+    /**
+     * Read an animal written by writeAnimals, at its location in this
+     * worker's field. An animal that is a ghost in this step is moved
+     * rather than copied again, so that, as in one process, killing it
+     * where it was also kills it where it went.
+     * @param in Where to read it from.
+     * @return The animal.
+     * @throws IOException If it cannot be read.
+     */
+    private Animal readAnimal(DataInput in) throws IOException
+    {
+        int species = in.readByte();
+        Location location = readLocation(in);
+        long id = in.readLong();
+        Parameters parameters = Parameters.DEFAULTS;
+        RandomEngine randomEngine = RandomEngine.DEFAULT;
+        Animal anAnimal = ghosts.get(id);
+        if (anAnimal != null) {
+            anAnimal.setLocation(location);
+        }
+        else {
+            anAnimal = switch (species) {
+                case 0 -> new Giraffe(false, location, id, parameters, randomEngine);
+                case 1 -> new Lion(false, location, id, parameters, randomEngine);
+                case 2 -> new Snake(false, location, id, parameters, randomEngine);
+                case 3 -> new Ocelot(false, location, id, parameters, randomEngine);
+                case 4 -> new Armadillo(false, location, id, parameters, randomEngine);
+                default -> throw new IOException("Unknown species " + species);
+            };
+        }
+        anAnimal.readState(in);
+        return anAnimal;
+    }
+
+    /**
+     * Write a location of this worker's field as one of the whole field.
+     * @param out Where to write it.
+     * @param location The location.
+     * @throws IOException If it cannot be written.
+     */
+    private void writeLocation(DataOutput out, Location location) throws IOException
+    {
+        out.writeInt(location.row() + rowOffset);
+        out.writeInt(location.col());
+    }
+
+    /**
+     * Read a location of the whole field as one of this worker's field.
+     * @param in Where to read it from.
+     * @return The location.
+     * @throws IOException If it cannot be read.
+     */
+    private Location readLocation(DataInput in) throws IOException
+    {
+        int row = in.readInt() - rowOffset;
+        return new Location(row, in.readInt());
+    }
+
+    /**
+     * @param plant A plant, or null.
+     * @return The code of the plant in a halo message.
+     */
+    private static byte plantCode(Plant plant)
+    {
+        if (plant instanceof BerryShrub) {
+            return BERRY_SHRUB;
+        }
+        else if (plant instanceof Tree) {
+            return TREE;
+        }
+        else if (plant instanceof LeafCell leafCell) {
+            return leafCell.parentClass() == BerryShrub.class ? BERRY_SHRUB_LEAF : TREE_LEAF;
+        }
+        return NO_PLANT;
+    }
+
+    /**
+     * Make a ghost of a plant from its code. A ghost leaf has a ghost
+     * plant of its own, so that prey can tell what it is.
+     * @param code The code of the plant.
+     * @param location Where the ghost goes.
+     * @return The ghost, or null if there is no plant.
+     */
+    private static Plant ghostPlant(byte code, Location location)
+    {
+        return switch (code) {
+            case BERRY_SHRUB -> new BerryShrub(location);
+            case TREE -> new Tree(location);
+            case BERRY_SHRUB_LEAF -> new LeafCell(location, new BerryShrub(location));
+            case TREE_LEAF -> new LeafCell(location, new Tree(location));
+            default -> null;
+        };
+    }
+
+    /**
+     * Write a population, for the coordinator.
+     * @param out Where to write it.
+     * @param population The population.
+     * @throws IOException If it cannot be written.
+     */
+    static void writePopulation(DataOutput out, Population population) throws IOException
+    {
+        out.writeInt(population.animalCounts().size());
+        for (Map.Entry<Class<?>, Integer> entry : population.animalCounts().entrySet()) {
+            out.writeUTF(entry.getKey().getName());
+            out.writeInt(entry.getValue());
+        }
+        out.writeInt(population.infected());
+        out.writeInt(population.leaves());
+    }
+
+    /**
+     * Read a population written by writePopulation.
+     * @param in Where to read it from.
+     * @return The population.
+     * @throws IOException If it cannot be read.
+     */
+    static Population readPopulation(DataInput in) throws IOException
+    {
+        Map<Class<?>, Integer> counts = new LinkedHashMap<>();
+        int species = in.readInt();
+        for (int i = 0; i < species; i++) {
+            String name = in.readUTF();
+            try {
+                counts.put(Class.forName(name), in.readInt());
+            }
+            catch(ClassNotFoundException e) {
+                throw new IOException("Unknown species " + name, e);
+            }
+        }
+        return new Population(counts, in.readInt(), in.readInt());
+    }
+
+    /**
+     * A connection to another process, with buffered streams both ways.
+     */
+    static class Link
+    {
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        /**
+         * @param socket The connected socket.
+         * @throws IOException If the socket's streams cannot be opened.
+         */
+        Link(Socket socket) throws IOException
+        {
+            socket.setTcpNoDelay(true);
+            socket.setSendBufferSize(BUFFER_SIZE);
+            socket.setReceiveBufferSize(BUFFER_SIZE);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+    }
+}
@@ -0,0 +1,335 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Run the simulation over many combinations of parameter values,
+ * without recompiling. A design is a list of Parameters, one per
+ * design point, made either as a full grid over the ranges of the
+ * varied parameters or as a Latin hypercube, which covers every range
+ * evenly with far fewer points. Every other parameter keeps its
+ * default value.
+ *
+ * Each design point is run a number of times on a fresh Simulator
+ * without a view. Run r of every design point uses the same seed, so
+ * that differences between design points come from the parameters
+ * rather than from luck. A run stops as soon as the simulation is no
+ * longer viable, and if that happens within the pruning limit, the
+ * design point's remaining runs are skipped. Design points run in
+ * parallel on an executor. A run that fails ends its design point,
+ * which is reported as failed, without stopping the others.
+ *
+ * Run it from the command line as
+ *
+ *     java Sweep grid|lhs count steps runs NAME=low:high ...
+ *
+ * where count is the number of values of each parameter for a grid,
+ * or the number of design points for a Latin hypercube, for example
+ *
+ *     java Sweep lhs 200 300 3 LION_BREEDING_AGE=5:25 PREY_HUNGRY_STEPS=10:40
+ *
+ * which prints one row of results per design point, separated by
+ * commas.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class Sweep
+{
+    // The size of the field used from the command line.
+    private static final int DEFAULT_DEPTH = 100;
+    private static final int DEFAULT_WIDTH = 150;
+    // The part of a run within which collapsing prunes the design point.
+    private static final int PRUNE_DIVISOR = 4;
+    // The purpose of the stream a Latin hypercube is drawn from.
+    private static final long DESIGN_STREAM = 3;
+
+    // The size of the field and length of each run.
+    private final int depth, width, steps;
+    // The number of runs of each design point.
+    private final int runs;
+    // A run that stops being viable before this step prunes its design point.
+    private final int pruneSteps;
+
+    /**
+     * Create a sweep. A design point is pruned if a run collapses in
+     * the first quarter of its steps.
+     * @param depth The depth of each field.
+     * @param width The width of each field.
+     * @param steps The number of steps of each run.
+     * @param runs The number of runs of each design point.
+     */
+    public Sweep(int depth, int width, int steps, int runs)
+    {
+        this(depth, width, steps, runs, steps / PRUNE_DIVISOR);
+    }
+
+    /**
+     * Create a sweep.
+     * @param depth The depth of each field.
+     * @param width The width of each field.
+     * @param steps The number of steps of each run.
+     * @param runs The number of runs of each design point.
+     * @param pruneSteps A run that stops being viable before this
+     *                   step prunes its design point; 0 never prunes.
+     */
+    public Sweep(int depth, int width, int steps, int runs, int pruneSteps)
+    {
+        this.depth = depth;
+        this.width = width;
+        this.steps = steps;
+        this.runs = runs;
+        this.pruneSteps = pruneSteps;
+    }
+
+    /**
+     * Make a full grid design: every combination of levels evenly
+     * spaced values of each range, the first range varying slowest.
+     * @param ranges The ranges of the varied parameters.
+     * @param levels The number of values of each range, at least 1.
+     * @return One Parameters for each of the levels^ranges points.
+     */
+    public static List<Parameters> grid(List<ParameterRange> ranges, int levels)
+    {
+        List<Parameters> design = new ArrayList<>();
+        design.add(Parameters.DEFAULTS);
+        for (ParameterRange range : ranges) {
+            List<Parameters> extended = new ArrayList<>();
+            for (Parameters point : design) {
+                for (int level = 0; level < levels; level++) {
+                    double fraction = levels > 1 ? (double) level / (levels - 1) : 0;
+                    extended.add(point.with(range.parameter(), range.at(fraction)));
+                }
+            }
+            design = extended;
+        }
+        return design;
+    }
+
+    /**
+     * Make a Latin hypercube design: each range is cut into as many
+     * equal strata as there are points, and every stratum of every
+     * range holds exactly one point, at a random place within it.
+     * @param ranges The ranges of the varied parameters.
+     * @param points The number of design points.
+     * @param seed The seed of the random choices.
+     * @return One Parameters for each design point.
+     */
+    public static List<Parameters> latinHypercube(List<ParameterRange> ranges, int points,
+                                                  long seed)
+    {
+        List<Parameters> design = new ArrayList<>();
+        for (int point = 0; point < points; point++) {
+            design.add(Parameters.DEFAULTS);
+        }
+        long designKey = RandomStream.key(seed, DESIGN_STREAM);
+        for (int r = 0; r < ranges.size(); r++) {
+            ParameterRange range = ranges.get(r);
+            RandomStream rand = RandomEngine.DEFAULT.newStream(designKey, r);
+            int[] strata = new int[points];
+            for (int i = 0; i < points; i++) {
+                strata[i] = i;
+            }
+            // Shuffle which point gets which stratum.
+            for (int i = points - 1; i > 0; i--) {
+                int j = rand.nextInt(i + 1);
+                int swap = strata[i];
+                strata[i] = strata[j];
+                strata[j] = swap;
+            }
+            for (int point = 0; point < points; point++) {
+                double fraction = (strata[point] + rand.nextDouble()) / points;
+                design.set(point, design.get(point).with(range.parameter(), range.at(fraction)));
+            }
+        }
+        return design;
+    }
+
+    /**
+     * Run every design point on the given executor and wait for them all.
+     * @param design The design points.
+     * @param seed The seed from which the seed of each run is made.
+     * @param executor The executor that runs the design points.
+     * @return The results, in the order of the design.
+     */
+    public List<SweepResult> run(List<Parameters> design, long seed, ExecutorService executor)
+    {
+        List<Future<SweepResult>> running = new ArrayList<>();
+        for (int index = 0; index < design.size(); index++) {
+            int point = index;
+            running.add(executor.submit(() -> runPoint(point, design.get(point), seed)));
+        }
+        List<SweepResult> results = new ArrayList<>();
+        try {
+            for (Future<SweepResult> future : running) {
+                results.add(future.get());
+            }
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the sweep", e);
+        }
+        catch(ExecutionException e) {
+            throw new IllegalStateException("A run of the sweep failed", e.getCause());
+        }
+        finally {
+            for (Future<SweepResult> future : running) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Run one design point. A run that fails is not counted, and the
+     * design point's remaining runs are skipped.
+     * @param index The number of the design point.
+     * @param parameters The parameters of the design point.
+     * @param seed The seed from which the seed of each run is made.
+     * @return What the runs came to.
+     */
+    private SweepResult runPoint(int index, Parameters parameters, long seed)
+    {
+        int made = 0;
+        int viable = 0;
+        boolean pruned = false;
+        String failure = null;
+        long stepSum = 0;
+        long preySum = 0;
+        long predatorSum = 0;
+        for (int run = 0; run < runs && !pruned && failure == null; run++) {
+            Simulator simulator;
+            try {
+                simulator = Simulator.withoutView(depth, width, RandomStream.key(seed, run),
+                                                  parameters);
+                while (simulator.getStep() < steps && simulator.isViable()) {
+                    simulator.simulateOneStep();
+                }
+            }
+            catch(RuntimeException e) {
+                failure = "run " + run + ": " + e;
+                continue;
+            }
+            made++;
+            stepSum += simulator.getStep();
+            if (simulator.isViable()) {
+                viable++;
+            }
+            else if (simulator.getStep() < pruneSteps) {
+                pruned = true;
+            }
+            for (Map.Entry<Class<?>, Integer> entry :
+                     simulator.getPopulation().animalCounts().entrySet()) {
+                if (Prey.class.isAssignableFrom(entry.getKey())) {
+                    preySum += entry.getValue();
+                }
+                else if (Predator.class.isAssignableFrom(entry.getKey())) {
+                    predatorSum += entry.getValue();
+                }
+            }
+        }
+        return new SweepResult(index, parameters, made, viable, pruned,
+                               (double) stepSum / made, (double) preySum / made,
+                               (double) predatorSum / made, failure);
+    }
+
+    /**
+     * Write the results as a table with a header line and one line
+     * per design point, the columns separated by commas.
+     * @param ranges The ranges of the varied parameters, whose values
+     *               are written for each design point.
+     * @param results The results.
+     * @param out Where to write the table.
+     */
+    public static void writeTable(List<ParameterRange> ranges, List<SweepResult> results,
+                                  PrintStream out)
+    {
+        StringBuilder header = new StringBuilder("point");
+        for (ParameterRange range : ranges) {
+            header.append(',').append(range.parameter());
+        }
+        header.append(",runs,viable,pruned,steps,prey,predators,failure");
+        out.println(header);
+        for (SweepResult result : results) {
+            StringBuilder row = new StringBuilder(String.valueOf(result.index()));
+            for (ParameterRange range : ranges) {
+                Parameter parameter = range.parameter();
+                if (parameter.isWhole()) {
+                    row.append(',').append(result.parameters().getInt(parameter));
+                }
+                else {
+                    row.append(',').append(String.format("%.4g", result.parameters().get(parameter)));
+                }
+            }
+            row.append(String.format(",%d,%d,%b,%.1f,%.1f,%.1f", result.runs(),
+                                     result.viableRuns(), result.pruned(), result.meanSteps(),
+                                     result.meanPrey(), result.meanPredators()));
+            // Commas in the failure would split it into columns.
+            row.append(',').append(result.failed() ? result.failure().replace(',', ';') : "");
+            out.println(row);
+        }
+    }
+
+    /**
+     * Run a sweep from the command line, printing its table to the
+     * standard output and how fast it ran to the standard error.
+     * @param args The design (grid or lhs), the count, the number of
+     *             steps, the number of runs of each design point and
+     *             the ranges.
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 5 || !(args[0].equals("grid") || args[0].equals("lhs"))) {
+            System.out.println("Usage: java Sweep grid|lhs count steps runs NAME=low:high ...");
+            return;
+        }
+        int count = Integer.parseInt(args[1]);
+        int steps = Integer.parseInt(args[2]);
+        int runs = Integer.parseInt(args[3]);
+        List<ParameterRange> ranges = new ArrayList<>();
+        for (int i = 4; i < args.length; i++) {
+            try {
+                ranges.add(ParameterRange.parse(args[i]));
+            }
+            catch(IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+                System.out.println("Usage: java Sweep grid|lhs count steps runs NAME=low:high ...");
+                return;
+            }
+        }
+
+        long seed = Randomizer.getSeed();
+        List<Parameters> design = args[0].equals("grid") ? grid(ranges, count)
+                                                         : latinHypercube(ranges, count, seed);
+        Sweep sweep = new Sweep(DEFAULT_DEPTH, DEFAULT_WIDTH, steps, runs);
+        ExecutorService executor =
+            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            long start = System.nanoTime();
+            List<SweepResult> results = sweep.run(design, seed, executor);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            writeTable(ranges, results, System.out);
+            int made = 0;
+            int failed = 0;
+            for (SweepResult result : results) {
+                made += result.runs();
+                if (result.failed()) {
+                    failed++;
+                }
+            }
+            System.err.printf("%d design points, %d runs in %.1f s: %.2f runs/sec%n",
+                              design.size(), made, seconds, made / seconds);
+            if (failed > 0) {
+                System.err.println(failed + " design points failed");
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
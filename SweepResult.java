@@ -0,0 +1,32 @@
+/**
+ * What the runs of one design point of a sweep came to.
+ *
+ * @param index The number of the design point.
+ * @param parameters The parameters of the design point.
+ * @param runs The number of runs made, fewer than asked for if the
+ *             design point was pruned.
+ * @param viableRuns The number of runs still viable at the last step.
+ * @param pruned Whether a run collapsed so early that the remaining
+ *               runs were skipped.
+ * @param meanSteps The mean number of steps the runs lasted.
+ * @param meanPrey The mean number of prey at the end of the runs.
+ * @param meanPredators The mean number of predators at the end of the runs.
+ * @param failure What went wrong if a run failed, in which case it is
+ *                not counted and the remaining runs were skipped, or
+ *                null if every run finished.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public record SweepResult(int index, Parameters parameters, int runs, int viableRuns,
+                          boolean pruned, double meanSteps, double meanPrey,
+                          double meanPredators, String failure)
+{
+    /**
+     * @return Whether a run of the design point failed.
+     */
+    public boolean failed()
+    {
+        return failure != null;
+    }
+}
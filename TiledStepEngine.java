@@ -0,0 +1,277 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Run the animals of a step on several threads by cutting the field
+ * into square tiles and colouring them like a chessboard with four
+ * colours, by the parity of the tile's row and column. The tiles of
+ * one colour are processed at the same time on a fork-join pool, and
+ * the colours one after another.
+ *
+ * An animal only reads and changes cells, and the organisms in them,
+ * at most 2 blocks from its own location (its 5x5 neighbourhood).
+ * Tiles of the same colour are a whole tile apart, so as long as
+ * tiles are at least 5 cells wide, no two threads ever touch the same
+ * cell or animal. Within a tile, animals act in the order of the
+ * field's list, as they do in the sequential engine.
+ *
+ * The rules followed by each animal are the same as with the
+ * sequential engine. Only the order in which animals in different
+ * tiles act differs, which matters only when two of them compete for
+ * a cell; and the field's list of animals is afterwards in row-major
+ * order of location rather than in order of placement.
+ *
+ * The tiles depend only on the tile size, never on the number of
+ * threads, and every animal draws from its own random stream, so a
+ * run gives the same results on any number of threads.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+public class TiledStepEngine implements StepEngine
+{
+    // The smallest tile side that keeps the 5x5 neighbourhoods of
+    // animals in different tiles of the same colour apart.
+    private static final int MIN_TILE_SIZE = 5;
+    // The tile side used unless another is given. Small enough that
+    // a 100x150 field has a dozen tiles of each colour to share out.
+    private static final int DEFAULT_TILE_SIZE = 16;
+    // The number of tile colours.
+    private static final int COLOURS = 4;
+
+    // The pool that runs the tiles.
+    private final ForkJoinPool pool;
+    // The side of a tile, in cells.
+    private final int tileSize;
+
+    /**
+     * Create an engine that runs on the common fork-join pool.
+     */
+    public TiledStepEngine()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create an engine that runs on the given pool.
+     * @param pool The pool that runs the tiles.
+     */
+    public TiledStepEngine(ForkJoinPool pool)
+    {
+        this(pool, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Create an engine that runs on the given pool with tiles of
+     * the given size. Smaller tiles share the work out more evenly
+     * between threads but cost more to schedule.
+     * @param pool The pool that runs the tiles.
+     * @param tileSize The side of a tile, at least 5 cells.
+     */
+    public TiledStepEngine(ForkJoinPool pool, int tileSize)
+    {
+        if (tileSize < MIN_TILE_SIZE) {
+            System.out.println("Tiles must be at least " + MIN_TILE_SIZE + " cells wide.");
+            System.out.println("Using the smallest size.");
+            tileSize = MIN_TILE_SIZE;
+        }
+        this.pool = pool;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Let every animal in the current field act once, with tiles
+     * of the same colour running in parallel.
+     * @param currentField The current state of the field.
+     * @param nextFieldState The empty field in which the next state is built.
+     * @param context The step number, time, weather and infection model.
+     */
+    @Override
+    public void step(Field currentField, Field nextFieldState, StepContext context)
+    {
+        Tiling tiling = Tiling.of(currentField, tileSize);
+        Tiles animals = new Tiles(currentField.getAnimals(), tiling);
+
+        nextFieldState.beginConcurrentUpdates();
+        try {
+            for (int colour = 0; colour < COLOURS; colour++) {
+                runColour(animals, colour, anAnimal ->
+                    anAnimal.act(currentField, nextFieldState, context));
+            }
+        }
+        finally {
+            nextFieldState.finishConcurrentUpdates();
+        }
+    }
+
+    /**
+     * Let the animals in every tile of one colour act, the tiles
+     * in parallel, and wait for them all to finish.
+     * @param tiles The animals sorted by tile.
+     * @param colour The colour of the tiles to run.
+     * @param action What each animal does.
+     */
+    private void runColour(Tiles tiles, int colour, Consumer<Animal> action)
+    {
+        int[] chosen = tiles.nonEmptyTilesOf(colour);
+        if (chosen.length == 1) {
+            tiles.run(chosen[0], action);
+        }
+        else if (chosen.length > 1) {
+            pool.invoke(new TileTask(tiles, chosen, 0, chosen.length, action));
+        }
+    }
+
+    /**
+     * How the field is cut into tiles.
+     * @param size The side of a tile, in cells.
+     * @param rows The number of rows of tiles.
+     * @param cols The number of columns of tiles.
+     */
+    private record Tiling(int size, int rows, int cols)
+    {
+        /**
+         * Cut a field into tiles of the given size.
+         * @param field The field to cut.
+         * @param size The side of a tile.
+         * @return The tiling.
+         */
+        static Tiling of(Field field, int size)
+        {
+            int depth = field.getDepth();
+            int width = field.getWidth();
+            return new Tiling(size, (depth + size - 1) / size, (width + size - 1) / size);
+        }
+
+        /**
+         * @param location A location in the field.
+         * @return The number of the tile holding the location.
+         */
+        int tileOf(Location location)
+        {
+            return (location.row() / size) * cols + location.col() / size;
+        }
+
+        /**
+         * @param tile The number of a tile.
+         * @return The colour of the tile, from 0 to 3.
+         */
+        int colourOf(int tile)
+        {
+            return (tile / cols % 2) * 2 + tile % cols % 2;
+        }
+    }
+
+    /**
+     * A list of animals sorted by tile, keeping the order of the
+     * list within each tile.
+     */
+    private static class Tiles
+    {
+        // The animals, tile by tile.
+        private final Animal[] sorted;
+        // Where the animals of each tile start in sorted; the
+        // animals of tile t end where those of tile t + 1 start.
+        private final int[] starts;
+        private final Tiling tiling;
+
+        /**
+         * Sort a list of animals by tile.
+         * @param animals The animals, none of them null.
+         * @param tiling How the field is cut into tiles.
+         */
+        Tiles(List<Animal> animals, Tiling tiling)
+        {
+            this.tiling = tiling;
+            int tileCount = tiling.rows() * tiling.cols();
+            int[] tileOfAnimal = new int[animals.size()];
+            starts = new int[tileCount + 1];
+            for (int i = 0; i < tileOfAnimal.length; i++) {
+                tileOfAnimal[i] = tiling.tileOf(animals.get(i).getLocation());
+                starts[tileOfAnimal[i] + 1]++;
+            }
+            for (int tile = 0; tile < tileCount; tile++) {
+                starts[tile + 1] += starts[tile];
+            }
+            sorted = new Animal[tileOfAnimal.length];
+            int[] next = Arrays.copyOf(starts, tileCount);
+            for (int i = 0; i < tileOfAnimal.length; i++) {
+                sorted[next[tileOfAnimal[i]]++] = animals.get(i);
+            }
+        }
+
+        /**
+         * @param colour A tile colour.
+         * @return The numbers of the tiles of that colour holding
+         *         at least one animal.
+         */
+        int[] nonEmptyTilesOf(int colour)
+        {
+            int[] chosen = new int[starts.length - 1];
+            int count = 0;
+            for (int tile = 0; tile < chosen.length; tile++) {
+                if (starts[tile + 1] > starts[tile] && tiling.colourOf(tile) == colour) {
+                    chosen[count++] = tile;
+                }
+            }
+            return Arrays.copyOf(chosen, count);
+        }
+
+        /**
+         * Let the animals of one tile act, in order.
+         * @param tile The number of the tile.
+         * @param action What each animal does.
+         */
+        void run(int tile, Consumer<Animal> action)
+        {
+            for (int i = starts[tile]; i < starts[tile + 1]; i++) {
+                action.accept(sorted[i]);
+            }
+        }
+    }
+
+    /**
+     * Run a range of tiles by splitting it in half until each task
+     * holds a single tile.
+     */
+    @SuppressWarnings("serial")
+    private static class TileTask extends RecursiveAction
+    {
+        private final Tiles tiles;
+        private final int[] chosen;
+        private final int from, to;
+        private final Consumer<Animal> action;
+
+        /**
+         * @param tiles The animals sorted by tile.
+         * @param chosen The numbers of the tiles to run.
+         * @param from The first entry of chosen to run.
+         * @param to One past the last entry of chosen to run.
+         * @param action What each animal does.
+         */
+        TileTask(Tiles tiles, int[] chosen, int from, int to, Consumer<Animal> action)
+        {
+            this.tiles = tiles;
+            this.chosen = chosen;
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from == 1) {
+                tiles.run(chosen[from], action);
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TileTask(tiles, chosen, from, middle, action),
+                          new TileTask(tiles, chosen, middle, to, action));
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * A rule deciding whether a simulation is still worth running. Rules
+ * are judged from the population counts that a field keeps up to date,
+ * so checking one takes constant time however large the field is.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+@FunctionalInterface
+public interface ViabilityRule
+{
+    // The default rule: at least one live prey and one live predator.
+    ViabilityRule PREY_AND_PREDATOR =
+        field -> field.getPreyCount() > 0 && field.getPredatorCount() > 0;
+
+    /**
+     * Decide whether the simulation of a field should continue.
+     * @param field The field to judge.
+     * @return true if the simulation is still viable.
+     */
+    boolean isViable(Field field);
+
+    /**
+     * Create a rule that requires a minimum number of live animals of
+     * each of the given species.
+     * @param minimum The smallest acceptable number of each species.
+     * @param species The classes of the species to check.
+     * @return The rule.
+     */
+    static ViabilityRule atLeast(int minimum, Class<?>... species)
+    {
+        int[] indexes = new int[species.length];
+        for(int i = 0; i < species.length; i++) {
+            indexes[i] = Species.indexOf(species[i]);
+        }
+        return field -> {
+            for(int index : indexes) {
+                if(field.getCount(index) < minimum) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+}
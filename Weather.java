@@ -13,9 +13,6 @@ public enum Weather
     CLEAR("clear"), 
     CLOUDY("cloudy");
 
-    // Random generator for weather
-    private static final Random rand = Randomizer.getRandom();
-
     private String nameString;
 
     /**
@@ -38,9 +35,10 @@ public enum Weather
 
     /**
      * Return a random Weather from the ones declared.
+     * @param rand The random generator to draw from.
      * @return Random weather
      */
-    public static Weather randomWeather()  {
+    public static Weather randomWeather(Random rand)  {
         Weather[] weathers = values();
         return weathers[rand.nextInt(weathers.length)];
     }
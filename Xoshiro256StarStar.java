@@ -0,0 +1,39 @@
+/**
+ * The xoshiro256** generator of Blackman and Vigna as a random
+ * stream. It has 256 bits of state, started from the key with
+ * SplitMix64, and draws each value with a few shifts, rotations and
+ * xors, so it is the fastest generator for streams that draw many
+ * values after each restart.
+ *
+ * @author Aryan Sanvee Vijayan, Alexander Sukhin
+ * @version 7.0
+ */
+@SuppressWarnings("serial")
+public class Xoshiro256StarStar extends RandomStream
+{
+    // The state of the generator.
+    private long s0, s1, s2, s3;
+
+    @Override
+    protected void start(long key)
+    {
+        s0 = mix(key += GAMMA);
+        s1 = mix(key += GAMMA);
+        s2 = mix(key += GAMMA);
+        s3 = mix(key + GAMMA);
+    }
+
+    @Override
+    public long nextLong()
+    {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+}